@@ -0,0 +1,23 @@
+package benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks with the gc profiler attached, so every result reports
+ * allocation rate (gc.alloc.rate.norm is bytes per operation) next to throughput.
+ * <p>
+ * Pass a regex as the first argument to run only matching benchmarks,
+ * e.g. {@code MoveCalculatorBenchmark}.
+ */
+public class BenchmarkMain {
+  public static void main(String[] args) throws RunnerException {
+    var options=new OptionsBuilder()
+            .include(args.length > 0 ? args[0] : "benchmarks\\..*")
+            .addProfiler(GCProfiler.class)
+            .build();
+    new Runner(options).run();
+  }
+}
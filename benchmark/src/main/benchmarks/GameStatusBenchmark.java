@@ -0,0 +1,46 @@
+package benchmarks;
+
+import chess.ChessGame;
+import chess.GameImple;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The check, checkmate and stalemate queries, separately and as the single
+ * status evaluation the server runs after every move
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations=3, time=1)
+@Measurement(iterations=5, time=1)
+@Fork(1)
+@State(Scope.Thread)
+public class GameStatusBenchmark {
+  GameImple game;
+
+  @Setup
+  public void setup() {
+    game=Positions.middlegame();
+  }
+
+  @Benchmark
+  public boolean isInCheck() {
+    return game.isInCheck(ChessGame.TeamColor.WHITE);
+  }
+
+  @Benchmark
+  public boolean isInCheckmate() {
+    return game.isInCheckmate(ChessGame.TeamColor.WHITE);
+  }
+
+  @Benchmark
+  public boolean isInStalemate() {
+    return game.isInStalemate(ChessGame.TeamColor.WHITE);
+  }
+
+  @Benchmark
+  public ChessGame.GameStatus evaluateStatus() {
+    return game.evaluateStatus(ChessGame.TeamColor.WHITE);
+  }
+}
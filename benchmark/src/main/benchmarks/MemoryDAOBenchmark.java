@@ -0,0 +1,58 @@
+package benchmarks;
+
+import dataAccess.DataAccessException;
+import dataAccess.MemoryDAO;
+import models.AuthToken;
+import models.Game;
+import models.User;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The in-memory DAO calls behind each HTTP endpoint, against a store that
+ * already holds some users and games
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations=3, time=1)
+@Measurement(iterations=5, time=1)
+@Fork(1)
+@State(Scope.Thread)
+public class MemoryDAOBenchmark {
+  @Param({"100"})
+  int games;
+
+  MemoryDAO dao;
+  User user;
+  AuthToken authToken;
+
+  @Setup(Level.Iteration)
+  public void setup() throws DataAccessException {
+    dao=new MemoryDAO();
+    user=new User("username", "password", "email");
+    authToken=dao.insertUser(user);
+    for (int index=0; index < games; ++index) dao.createGame(authToken, new Game("game" + index));
+  }
+
+  @Benchmark
+  public AuthToken login() throws DataAccessException {
+    return dao.loginUser(user);
+  }
+
+  @Benchmark
+  public AuthToken verifyAuthToken() throws DataAccessException {
+    return dao.verifyAuthToken(authToken);
+  }
+
+  @Benchmark
+  public List<Game> listGames() throws DataAccessException {
+    return dao.listGames(authToken);
+  }
+
+  @Benchmark
+  public Game createGame() throws DataAccessException {
+    return dao.createGame(authToken, new Game("benchmark"));
+  }
+}
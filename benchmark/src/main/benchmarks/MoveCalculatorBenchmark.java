@@ -0,0 +1,50 @@
+package benchmarks;
+
+import chess.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pseudo-legal move generation for a single piece, through both the
+ * Collection API and the packed buffer API
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations=3, time=1)
+@Measurement(iterations=5, time=1)
+@Fork(1)
+@State(Scope.Thread)
+public class MoveCalculatorBenchmark {
+  @Param({"KING", "QUEEN", "BISHOP", "KNIGHT", "ROOK", "PAWN"})
+  ChessPiece.PieceType type;
+
+  ChessBoard board;
+  ChessPosition position;
+  ChessPiece piece;
+  int square;
+  MoveList buffer=new MoveList();
+
+  @Setup
+  public void setup() {
+    board=Positions.middlegame().getBoard();
+    // a central square that the middlegame leaves empty, so every piece type has room to move
+    square=3 * 8 + 3;
+    position=PositionImple.of(3, 3);
+    piece=PieceImple.of(ChessGame.TeamColor.WHITE, type);
+    board.addPiece(position, piece);
+  }
+
+  @Benchmark
+  public Collection<ChessMove> collectionMoves() {
+    return MoveCalculator.getMoves(board, position, piece);
+  }
+
+  @Benchmark
+  public int packedMoves() {
+    buffer.clear();
+    MoveCalculator.getMoves(board, square, piece, buffer);
+    return buffer.size();
+  }
+}
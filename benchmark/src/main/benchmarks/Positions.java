@@ -0,0 +1,21 @@
+package benchmarks;
+
+import chess.ChessGame;
+import chess.GameImple;
+
+/**
+ * Positions shared by the benchmarks, in the {@link chess.BoardImple#serialize()} layout
+ */
+final class Positions {
+  /**
+   * A busy middlegame with every piece type active
+   */
+  static final String MIDDLEGAME="R...K..RPPPBBPPP..N..Q.p.p..P......PN...bn..pnp.p.ppqpb.r...k..r";
+
+  private Positions() {
+  }
+
+  static GameImple middlegame() {
+    return GameImple.deserialize(MIDDLEGAME, ChessGame.TeamColor.WHITE);
+  }
+}
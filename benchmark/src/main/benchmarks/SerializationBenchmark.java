@@ -0,0 +1,56 @@
+package benchmarks;
+
+import chess.BoardImple;
+import chess.ChessBoard;
+import chess.GameImple;
+import com.google.gson.Gson;
+import org.openjdk.jmh.annotations.*;
+import webSocketMessages.serverMessages.LoadGameMessage;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The board string format used by the database and LoadGameMessage, and the
+ * Gson round trip every LOAD_GAME broadcast goes through
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations=3, time=1)
+@Measurement(iterations=5, time=1)
+@Fork(1)
+@State(Scope.Thread)
+public class SerializationBenchmark {
+  final Gson gson=new Gson();
+  GameImple game;
+  ChessBoard board;
+  String serializedBoard;
+  String loadGameJson;
+
+  @Setup
+  public void setup() {
+    game=Positions.middlegame();
+    board=game.getBoard();
+    serializedBoard=board.serialize();
+    loadGameJson=gson.toJson(new LoadGameMessage(game));
+  }
+
+  @Benchmark
+  public String serializeBoard() {
+    return board.serialize();
+  }
+
+  @Benchmark
+  public ChessBoard deserializeBoard() {
+    return BoardImple.deserialize(serializedBoard);
+  }
+
+  @Benchmark
+  public String loadGameToJson() {
+    return gson.toJson(new LoadGameMessage(game));
+  }
+
+  @Benchmark
+  public GameImple loadGameFromJson() {
+    return gson.fromJson(loadGameJson, LoadGameMessage.class).getGame();
+  }
+}
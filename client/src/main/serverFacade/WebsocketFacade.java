@@ -103,6 +103,10 @@ public class WebsocketFacade extends Endpoint {
     sendMessage(messageFactory.resign(gameID));
   }
 
+  public void analyze(int gameID) throws ClientException {
+    sendMessage(messageFactory.analyze(gameID));
+  }
+
   @Override
   public void onOpen(Session session, EndpointConfig endpointConfig) {
   }
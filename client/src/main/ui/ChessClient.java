@@ -8,9 +8,7 @@ import serverFacade.ServerFacade;
 import serverFacade.WebsocketFacade;
 
 import java.util.Arrays;
-import java.util.Collection;
 import java.util.HashMap;
-import java.util.HashSet;
 
 import static ui.EscapeSequences.*;
 
@@ -22,6 +20,9 @@ public class ChessClient {
   private State state;
   private AuthToken authToken;
   private GameImple currentGame;
+  // legal moves of the position last highlighted, kept until the game moves on
+  private LegalMoveList currentMoves;
+  private long currentMovesHash;
   private ChessGame.TeamColor teamColor;
   private int gameID;
 
@@ -58,6 +59,7 @@ public class ChessClient {
       case "leave" -> leave();
       case "move" -> move(params);
       case "highlight" -> highlight(params);
+      case "hint" -> hint();
       case "quit" -> quit();
       case "info" -> info();
       default -> "Unknown command. Type 'help' to see all commands.";
@@ -207,6 +209,14 @@ public class ChessClient {
     return "Successfully resigned!";
   }
 
+  private String hint() throws ClientException {
+    assertInGameOrObserving();
+
+    ws.analyze(gameID);
+
+    return "Asked the engine for a hint...";
+  }
+
   private String leave() throws ClientException {
     assertInGameOrObserving();
 
@@ -239,7 +249,7 @@ public class ChessClient {
       if (file < 97 || file > 104 || rank < 49 || rank > 56)
         throw new ClientException(400, "Expected: <[a-h]><[1-8]> <[a-h]><[1-8]>");
 
-      positions[index++]=new PositionImple(rank - 49, 7 - (file - 97));
+      positions[index++]=new PositionImple(rank - 49, file - 97);
     }
 
     try {
@@ -271,12 +281,29 @@ public class ChessClient {
     if (file < 97 || file > 104 || rank < 49 || rank > 56)
       throw new ClientException(400, "Expected: <[a-h]><[1-8]> <[a-h]><[1-8]>");
 
-    var position=new PositionImple(rank - 49, 7 - (file - 97));
+    var position=new PositionImple(rank - 49, file - 97);
 
     var piece=currentGame.getBoard().getPiece(position);
     if (piece == null) throw new ClientException(400, "Not a piece!");
 
-    return displayBoard(currentGame.getBoard(), teamColor, position);
+    var square=position.getRow() * 8 + position.getColumn();
+    long targets=0;
+    if (piece.getTeamColor() == currentGame.getTeamTurn()) targets=legalMoves().targets(square);
+    else {
+      // the side not to move has no list; its piece's moves are worked out on their own
+      for (var move : currentGame.validMoves(position)) {
+        targets|=1L << move.getEndPosition().getRow() * 8 + move.getEndPosition().getColumn();
+      }
+    }
+    return displayBoard(currentGame.getBoard(), teamColor, position, targets);
+  }
+
+  private LegalMoveList legalMoves() {
+    if (currentMoves == null || currentMovesHash != currentGame.getHash()) {
+      currentMoves=currentGame.allLegalMoves();
+      currentMovesHash=currentGame.getHash();
+    }
+    return currentMoves;
   }
 
   private String redraw() throws ClientException {
@@ -287,14 +314,29 @@ public class ChessClient {
 
   public String displayGame(GameImple game) {
     currentGame=game;
-    return displayBoard(game.getBoard(), this.teamColor);
+    var display=displayBoard(game.getBoard(), this.teamColor);
+    if (state == State.OBSERVING) display+=evaluationBar(Evaluation.evaluate(game));
+    return display;
+  }
+
+  // white's share of the bar grows with the evaluation, which is capped at five pawns either way
+  private static String evaluationBar(int centipawns) {
+    var width=30;
+    var capped=Math.max(-500, Math.min(500, centipawns));
+    var white=(capped + 500) * width / 1000;
+    return SET_BG_COLOR_WHITE + " ".repeat(white) + SET_BG_COLOR_BLACK + " ".repeat(width - white) + RESET +
+            String.format(" %+.2f%n", centipawns / 100.0);
   }
 
   private String displayBoard(ChessBoard board, ChessGame.TeamColor perspective) {
-    return displayBoard(board, perspective, null);
+    return displayBoard(board, perspective, null, 0);
   }
 
-  private String displayBoard(ChessBoard board, ChessGame.TeamColor perspective, ChessPosition pieceMovesToHighlight) {
+  /**
+   * @param pieceMovesToHighlight square of the piece whose moves are shown, or null
+   * @param targets               squares it can move to, one bit per square
+   */
+  private String displayBoard(ChessBoard board, ChessGame.TeamColor perspective, ChessPosition pieceMovesToHighlight, long targets) {
     var horizontalChars=new char[]{'h', 'g', 'f', 'e', 'd', 'c', 'b', 'a'};
     var verticalChars=new char[]{'1', '2', '3', '4', '5', '6', '7', '8'};
 
@@ -308,18 +350,6 @@ public class ChessClient {
       }
     }
 
-    var tempGame=new GameImple();
-    tempGame.setBoard(board);
-    Collection<ChessMove> moves=new HashSet<>();
-    if (pieceMovesToHighlight != null) moves=tempGame.validMoves(pieceMovesToHighlight);
-
-    var highlightedPos=new HashSet<ChessPosition>();
-    highlightedPos.add(pieceMovesToHighlight);
-
-    for (var move : moves) {
-      highlightedPos.add(move.getEndPosition());
-    }
-
     var sb=new StringBuilder();
 
     for (int y=0; y < 10; ++y) {
@@ -346,10 +376,10 @@ public class ChessClient {
 
           ChessPosition pos;
 
-          if (perspective == ChessGame.TeamColor.WHITE) pos=new PositionImple(7 - (y - 1), 7 - (x - 1));
-          else pos=new PositionImple(y - 1, x - 1);
+          if (perspective == ChessGame.TeamColor.WHITE) pos=new PositionImple(7 - (y - 1), x - 1);
+          else pos=new PositionImple(y - 1, 7 - (x - 1));
 
-          if (highlightedPos.contains(pos)) {
+          if (pos.equals(pieceMovesToHighlight) || (targets & 1L << pos.getRow() * 8 + pos.getColumn()) != 0) {
             if (background.equals(SET_BG_COLOR_BLACK)) background=SET_BG_COLOR_DARK_GREEN;
             else background=SET_BG_COLOR_GREEN;
           }
@@ -401,12 +431,14 @@ public class ChessClient {
               - move <file><rank> <file><rank>
               - resign
               - highlight <file><rank>
+              - hint
               """;
       case OBSERVING -> """
               - help
               - redraw
               - leave
               - highlight <file><rank>
+              - hint
               """;
       default -> "Unknown state";
     };
@@ -0,0 +1,180 @@
+package chess;
+
+import java.util.Arrays;
+
+/**
+ * A chessboard backed by one 64-bit mask per piece kind instead of an array of
+ * piece objects. Bit {@code row * 8 + column} is set when the square is occupied.
+ */
+public class BitboardBoard implements ChessBoard {
+  /**
+   * One bitboard per (color, type), indexed by {@link PieceImple#kindIndex}
+   */
+  final long[] pieces=new long[12];
+  /**
+   * Occupancy of each team, indexed by {@link ChessGame.TeamColor#ordinal()}
+   */
+  final long[] teamOccupancy=new long[2];
+  long occupancy;
+  long hash;
+  int pieceSquareScore;
+
+  public static ChessBoard deserialize(String serializedGame) {
+    var board=new BitboardBoard();
+    for (int square=0; square < 64; ++square) {
+      var piece=PieceImple.deserialize(serializedGame.charAt(square));
+      if (piece != null) board.set(square, PieceImple.kindIndex(piece.getTeamColor(), piece.getPieceType()));
+    }
+    return board;
+  }
+
+  private static int square(ChessPosition position) {
+    return position.getRow() * 8 + position.getColumn();
+  }
+
+  @Override
+  public void addPiece(ChessPosition position, ChessPiece piece) {
+    var square=square(position);
+    clear(square);
+    if (piece != null) set(square, PieceImple.kindIndex(piece.getTeamColor(), piece.getPieceType()));
+  }
+
+  @Override
+  public ChessPiece getPiece(ChessPosition position) {
+    var kind=kindAt(square(position));
+    return kind < 0 ? null : PieceImple.of(kind);
+  }
+
+  @Override
+  public void resetBoard() {
+    Arrays.fill(pieces, 0L);
+    var white=ChessGame.TeamColor.WHITE.ordinal() * 6;
+    var black=ChessGame.TeamColor.BLACK.ordinal() * 6;
+
+    pieces[white + ChessPiece.PieceType.ROOK.ordinal()]=0x81L;
+    pieces[white + ChessPiece.PieceType.KNIGHT.ordinal()]=0x42L;
+    pieces[white + ChessPiece.PieceType.BISHOP.ordinal()]=0x24L;
+    pieces[white + ChessPiece.PieceType.QUEEN.ordinal()]=0x08L;
+    pieces[white + ChessPiece.PieceType.KING.ordinal()]=0x10L;
+    pieces[white + ChessPiece.PieceType.PAWN.ordinal()]=0xFF00L;
+
+    // black mirrors white across the middle of the board
+    for (int type=0; type < 6; ++type) pieces[black + type]=Long.reverseBytes(pieces[white + type]);
+
+    recomputeOccupancy();
+    hash=0;
+    pieceSquareScore=0;
+    for (int square=0; square < 64; ++square) {
+      var kind=kindAt(square);
+      if (kind < 0) continue;
+      hash^=Zobrist.pieceKey(kind, square);
+      pieceSquareScore+=Evaluation.pieceSquare(kind, square);
+    }
+  }
+
+  @Override
+  public long getHash() {
+    return hash;
+  }
+
+  @Override
+  public long getOccupancy() {
+    return occupancy;
+  }
+
+  @Override
+  public long getOccupancy(ChessGame.TeamColor teamColor) {
+    return teamOccupancy[teamColor.ordinal()];
+  }
+
+  @Override
+  public long getPieces(ChessGame.TeamColor teamColor, ChessPiece.PieceType type) {
+    return pieces[PieceImple.kindIndex(teamColor, type)];
+  }
+
+  @Override
+  public int getPieceSquareScore() {
+    return pieceSquareScore;
+  }
+
+  @Override
+  public ChessPosition getKingPosition(ChessGame.TeamColor teamColor) {
+    var kings=pieces[PieceImple.kindIndex(teamColor, ChessPiece.PieceType.KING)];
+    return kings == 0 ? null : PositionImple.of(Long.numberOfTrailingZeros(kings));
+  }
+
+  /**
+   * @return the kind index of the piece on the square, or -1 if it is empty
+   */
+  int kindAt(int square) {
+    var bit=1L << square;
+    if ((occupancy & bit) == 0) return -1;
+    var first=(teamOccupancy[0] & bit) != 0 ? 0 : 6;
+    for (int kind=first; kind < first + 6; ++kind) {
+      if ((pieces[kind] & bit) != 0) return kind;
+    }
+    return -1;
+  }
+
+  private void set(int square, int kind) {
+    var bit=1L << square;
+    pieces[kind]|=bit;
+    teamOccupancy[kind / 6]|=bit;
+    occupancy|=bit;
+    hash^=Zobrist.pieceKey(kind, square);
+    pieceSquareScore+=Evaluation.pieceSquare(kind, square);
+  }
+
+  private void clear(int square) {
+    var kind=kindAt(square);
+    if (kind < 0) return;
+    var bit=~(1L << square);
+    pieces[kind]&=bit;
+    teamOccupancy[kind / 6]&=bit;
+    occupancy&=bit;
+    hash^=Zobrist.pieceKey(kind, square);
+    pieceSquareScore-=Evaluation.pieceSquare(kind, square);
+  }
+
+  private void recomputeOccupancy() {
+    teamOccupancy[0]=0;
+    teamOccupancy[1]=0;
+    for (int kind=0; kind < 12; ++kind) teamOccupancy[kind / 6]|=pieces[kind];
+    occupancy=teamOccupancy[0] | teamOccupancy[1];
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (obj == null) return false;
+    if (obj.getClass() != getClass()) return false;
+    var otherBoard=(BitboardBoard) obj;
+    if (hash != otherBoard.hash) return false;
+    return Arrays.equals(pieces, otherBoard.pieces);
+  }
+
+  @Override
+  public int hashCode() {
+    return Long.hashCode(hash);
+  }
+
+  @Override
+  public String toString() {
+    var sb=new StringBuilder().append('|');
+    for (int square=0; square < 64; ++square) {
+      var kind=kindAt(square);
+      sb.append(kind < 0 ? "." : PieceImple.of(kind)).append('|');
+      if (square % 8 == 7 && square != 63) sb.append("\n|");
+    }
+    return sb.toString();
+  }
+
+  @Override
+  public String serialize() {
+    var sb=new StringBuilder();
+    for (int square=0; square < 64; ++square) {
+      var kind=kindAt(square);
+      sb.append(kind < 0 ? "." : PieceImple.of(kind));
+    }
+    return sb.toString();
+  }
+}
@@ -1,16 +1,25 @@
 package chess;
 
+import java.util.Arrays;
 import java.util.function.BiFunction;
 
 public class BoardImple implements ChessBoard {
   ChessPiece[][] board=new ChessPiece[8][8];
+  // square of each team's king, or -1 when it has to be looked up again
+  private final int[] kingSquares={-1, -1};
+  private long hash;
+  // squares occupied by each team, indexed by ChessGame.TeamColor#ordinal()
+  private final long[] teamOccupancy=new long[2];
+  // squares occupied by each kind of piece, indexed by PieceImple#kindIndex
+  private final long[] kindOccupancy=new long[12];
+  private int pieceSquareScore;
 
   public static ChessBoard deserialize(String serializedGame) {
     ChessBoard board=new BoardImple();
     for (int x=0; x < 8; ++x) {
       for (int y=0; y < 8; ++y) {
         var piece=PieceImple.deserialize(serializedGame.charAt(x * 8 + y));
-        board.addPiece(new PositionImple(x, y), piece);
+        board.addPiece(PositionImple.of(x, y), piece);
       }
     }
     return board;
@@ -18,7 +27,23 @@ public class BoardImple implements ChessBoard {
 
   @Override
   public void addPiece(ChessPosition position, ChessPiece piece) {
+    var square=position.getRow() * 8 + position.getColumn();
+    var replaced=board[position.getRow()][position.getColumn()];
+    if (isKing(replaced) && kingSquares[replaced.getTeamColor().ordinal()] == square)
+      kingSquares[replaced.getTeamColor().ordinal()]=-1;
+    hash^=Zobrist.pieceKey(replaced, square) ^ Zobrist.pieceKey(piece, square);
+    pieceSquareScore+=Evaluation.pieceSquare(piece, square) - Evaluation.pieceSquare(replaced, square);
+    var bit=1L << square;
+    if (replaced != null) {
+      teamOccupancy[replaced.getTeamColor().ordinal()]&=~bit;
+      kindOccupancy[PieceImple.kindIndex(replaced.getTeamColor(), replaced.getPieceType())]&=~bit;
+    }
+    if (piece != null) {
+      teamOccupancy[piece.getTeamColor().ordinal()]|=bit;
+      kindOccupancy[PieceImple.kindIndex(piece.getTeamColor(), piece.getPieceType())]|=bit;
+    }
     board[position.getRow()][position.getColumn()]=piece;
+    if (isKing(piece)) kingSquares[piece.getTeamColor().ordinal()]=square;
   }
 
   @Override
@@ -26,11 +51,36 @@ public class BoardImple implements ChessBoard {
     return board[position.getRow()][position.getColumn()];
   }
 
+  @Override
+  public ChessPosition getKingPosition(ChessGame.TeamColor teamColor) {
+    var square=kingSquares[teamColor.ordinal()];
+    if (square < 0) {
+      square=findKing(teamColor);
+      if (square < 0) return null;
+      kingSquares[teamColor.ordinal()]=square;
+    }
+    return PositionImple.of(square);
+  }
+
+  private int findKing(ChessGame.TeamColor teamColor) {
+    for (int row=0; row < 8; ++row) {
+      for (int col=0; col < 8; ++col) {
+        var piece=board[row][col];
+        if (isKing(piece) && piece.getTeamColor() == teamColor) return row * 8 + col;
+      }
+    }
+    return -1;
+  }
+
+  private static boolean isKing(ChessPiece piece) {
+    return piece != null && piece.getPieceType() == ChessPiece.PieceType.KING;
+  }
+
   @Override
   public void resetBoard() {
     // PieceFactory
     BiFunction<ChessGame.TeamColor, ChessPiece.PieceType, PieceImple> pf=
-            PieceImple::new;
+            PieceImple::of;
     var white=ChessGame.TeamColor.WHITE;
     var black=ChessGame.TeamColor.BLACK;
     var rook=ChessPiece.PieceType.ROOK;
@@ -41,15 +91,56 @@ public class BoardImple implements ChessBoard {
     var pawn=ChessPiece.PieceType.PAWN;
 
     board=new ChessPiece[][]{
-            {pf.apply(white, rook), pf.apply(white, knight), pf.apply(white, bishop), pf.apply(white, king), pf.apply(white, queen), pf.apply(white, bishop), pf.apply(white, knight), pf.apply(white, rook)},
+            {pf.apply(white, rook), pf.apply(white, knight), pf.apply(white, bishop), pf.apply(white, queen), pf.apply(white, king), pf.apply(white, bishop), pf.apply(white, knight), pf.apply(white, rook)},
             {pf.apply(white, pawn), pf.apply(white, pawn), pf.apply(white, pawn), pf.apply(white, pawn), pf.apply(white, pawn), pf.apply(white, pawn), pf.apply(white, pawn), pf.apply(white, pawn)},
             {null, null, null, null, null, null, null, null},
             {null, null, null, null, null, null, null, null},
             {null, null, null, null, null, null, null, null},
             {null, null, null, null, null, null, null, null},
             {pf.apply(black, pawn), pf.apply(black, pawn), pf.apply(black, pawn), pf.apply(black, pawn), pf.apply(black, pawn), pf.apply(black, pawn), pf.apply(black, pawn), pf.apply(black, pawn)},
-            {pf.apply(black, rook), pf.apply(black, knight), pf.apply(black, bishop), pf.apply(black, king), pf.apply(black, queen), pf.apply(black, bishop), pf.apply(black, knight), pf.apply(black, rook)},
+            {pf.apply(black, rook), pf.apply(black, knight), pf.apply(black, bishop), pf.apply(black, queen), pf.apply(black, king), pf.apply(black, bishop), pf.apply(black, knight), pf.apply(black, rook)},
     };
+    kingSquares[white.ordinal()]=4;
+    kingSquares[black.ordinal()]=60;
+    teamOccupancy[white.ordinal()]=0xFFFFL;
+    teamOccupancy[black.ordinal()]=0xFFFFL << 48;
+    hash=0;
+    pieceSquareScore=0;
+    Arrays.fill(kindOccupancy, 0L);
+    for (int row=0; row < 8; ++row) {
+      for (int col=0; col < 8; ++col) {
+        var piece=board[row][col];
+        if (piece == null) continue;
+        hash^=Zobrist.pieceKey(piece, row * 8 + col);
+        pieceSquareScore+=Evaluation.pieceSquare(piece, row * 8 + col);
+        kindOccupancy[PieceImple.kindIndex(piece.getTeamColor(), piece.getPieceType())]|=1L << row * 8 + col;
+      }
+    }
+  }
+
+  @Override
+  public long getHash() {
+    return hash;
+  }
+
+  @Override
+  public long getOccupancy() {
+    return teamOccupancy[0] | teamOccupancy[1];
+  }
+
+  @Override
+  public long getOccupancy(ChessGame.TeamColor teamColor) {
+    return teamOccupancy[teamColor.ordinal()];
+  }
+
+  @Override
+  public long getPieces(ChessGame.TeamColor teamColor, ChessPiece.PieceType type) {
+    return kindOccupancy[PieceImple.kindIndex(teamColor, type)];
+  }
+
+  @Override
+  public int getPieceSquareScore() {
+    return pieceSquareScore;
   }
 
   @Override
@@ -57,6 +148,7 @@ public class BoardImple implements ChessBoard {
     if (obj == null) return false;
     if (obj.getClass() != getClass()) return false;
     var otherBoard=(BoardImple) obj;
+    if (hash != otherBoard.hash) return false;
     for (int row=0; row < 8; ++row) {
       for (int col=0; col < 8; ++col) {
         var piece=board[row][col];
@@ -69,6 +161,11 @@ public class BoardImple implements ChessBoard {
     return true;
   }
 
+  @Override
+  public int hashCode() {
+    return Long.hashCode(hash);
+  }
+
   @Override
   public String toString() {
     var sb=new StringBuilder().append('|');
@@ -0,0 +1,211 @@
+package chess;
+
+/**
+ * Static evaluation in centipawns, from white's point of view: positive is
+ * good for white. Material and piece-square values are summed per piece, so
+ * boards keep the total up to date as pieces are added and removed (see
+ * {@link ChessBoard#getPieceSquareScore()}), the same way they keep their
+ * Zobrist hash. Pawn structure, and the king's table once most pieces are
+ * off, are worked out from the piece bitboards when evaluating.
+ */
+public final class Evaluation {
+  /**
+   * Piece values in centipawns, indexed by {@link ChessPiece.PieceType#ordinal()}
+   */
+  static final int[] pieceValues={0, 900, 330, 320, 500, 100};
+
+  private static final int doubledPawn=10;
+  private static final int isolatedPawn=15;
+  // bonus for a passed pawn by rows advanced from its starting side
+  private static final int[] passedPawn={0, 5, 10, 20, 35, 60, 100, 0};
+  // non-pawn material on the board, both teams together, at or below which the king heads for the center
+  private static final int endgameMaterial=1300;
+
+  // piece-square tables as seen by white, rank 8 first so they read like a board
+  private static final int[][] tables={
+          // king, kept back behind its pawns
+          {
+                  -30, -40, -40, -50, -50, -40, -40, -30,
+                  -30, -40, -40, -50, -50, -40, -40, -30,
+                  -30, -40, -40, -50, -50, -40, -40, -30,
+                  -30, -40, -40, -50, -50, -40, -40, -30,
+                  -20, -30, -30, -40, -40, -30, -30, -20,
+                  -10, -20, -20, -20, -20, -20, -20, -10,
+                  20, 20, 0, 0, 0, 0, 20, 20,
+                  20, 30, 10, 0, 0, 10, 30, 20},
+          // queen
+          {
+                  -20, -10, -10, -5, -5, -10, -10, -20,
+                  -10, 0, 0, 0, 0, 0, 0, -10,
+                  -10, 0, 5, 5, 5, 5, 0, -10,
+                  -5, 0, 5, 5, 5, 5, 0, -5,
+                  0, 0, 5, 5, 5, 5, 0, -5,
+                  -10, 5, 5, 5, 5, 5, 0, -10,
+                  -10, 0, 5, 0, 0, 0, 0, -10,
+                  -20, -10, -10, -5, -5, -10, -10, -20},
+          // bishop
+          {
+                  -20, -10, -10, -10, -10, -10, -10, -20,
+                  -10, 0, 0, 0, 0, 0, 0, -10,
+                  -10, 0, 5, 10, 10, 5, 0, -10,
+                  -10, 5, 5, 10, 10, 5, 5, -10,
+                  -10, 0, 10, 10, 10, 10, 0, -10,
+                  -10, 10, 10, 10, 10, 10, 10, -10,
+                  -10, 5, 0, 0, 0, 0, 5, -10,
+                  -20, -10, -10, -10, -10, -10, -10, -20},
+          // knight
+          {
+                  -50, -40, -30, -30, -30, -30, -40, -50,
+                  -40, -20, 0, 0, 0, 0, -20, -40,
+                  -30, 0, 10, 15, 15, 10, 0, -30,
+                  -30, 5, 15, 20, 20, 15, 5, -30,
+                  -30, 0, 15, 20, 20, 15, 0, -30,
+                  -30, 5, 10, 15, 15, 10, 5, -30,
+                  -40, -20, 0, 5, 5, 0, -20, -40,
+                  -50, -40, -30, -30, -30, -30, -40, -50},
+          // rook
+          {
+                  0, 0, 0, 0, 0, 0, 0, 0,
+                  5, 10, 10, 10, 10, 10, 10, 5,
+                  -5, 0, 0, 0, 0, 0, 0, -5,
+                  -5, 0, 0, 0, 0, 0, 0, -5,
+                  -5, 0, 0, 0, 0, 0, 0, -5,
+                  -5, 0, 0, 0, 0, 0, 0, -5,
+                  -5, 0, 0, 0, 0, 0, 0, -5,
+                  0, 0, 0, 5, 5, 0, 0, 0},
+          // pawn
+          {
+                  0, 0, 0, 0, 0, 0, 0, 0,
+                  50, 50, 50, 50, 50, 50, 50, 50,
+                  10, 10, 20, 30, 30, 20, 10, 10,
+                  5, 5, 10, 25, 25, 10, 5, 5,
+                  0, 0, 0, 20, 20, 0, 0, 0,
+                  5, -5, -10, 0, 0, -10, -5, 5,
+                  5, 10, 10, -20, -20, 10, 10, 5,
+                  0, 0, 0, 0, 0, 0, 0, 0},
+  };
+
+  // the king in the endgame, wanted in the center
+  private static final int[] kingEndgameTable={
+          -50, -40, -30, -20, -20, -30, -40, -50,
+          -30, -20, -10, 0, 0, -10, -20, -30,
+          -30, -10, 20, 30, 30, 20, -10, -30,
+          -30, -10, 30, 40, 40, 30, -10, -30,
+          -30, -10, 30, 40, 40, 30, -10, -30,
+          -30, -10, 20, 30, 30, 20, -10, -30,
+          -30, -30, 0, 0, 0, 0, -30, -30,
+          -50, -30, -30, -30, -30, -30, -30, -50};
+
+  // value plus table entry of each (kind, square), negative for black
+  private static final int[] pieceSquare=new int[12 * 64];
+  // difference the endgame king table makes for each (color, square), negative for black
+  private static final int[] kingEndgameShift=new int[2 * 64];
+  private static final long[] files=new long[8];
+  private static final long[] adjacentFiles=new long[8];
+  // squares an enemy pawn would have to be on to stop a pawn, by color and square
+  private static final long[] passedMasks=new long[2 * 64];
+
+  static {
+    for (int file=0; file < 8; ++file) files[file]=0x0101010101010101L << file;
+    for (int file=0; file < 8; ++file) {
+      if (file > 0) adjacentFiles[file]|=files[file - 1];
+      if (file < 7) adjacentFiles[file]|=files[file + 1];
+    }
+
+    for (int square=0; square < 64; ++square) {
+      var row=square >>> 3;
+      var col=square & 7;
+      // black reads the tables upside down
+      var whiteEntry=(7 - row) * 8 + col;
+      var blackEntry=row * 8 + col;
+      for (var type : ChessPiece.PieceType.values()) {
+        var white=pieceValues[type.ordinal()] + tables[type.ordinal()][whiteEntry];
+        var black=pieceValues[type.ordinal()] + tables[type.ordinal()][blackEntry];
+        pieceSquare[PieceImple.kindIndex(ChessGame.TeamColor.WHITE, type) * 64 + square]=white;
+        pieceSquare[PieceImple.kindIndex(ChessGame.TeamColor.BLACK, type) * 64 + square]=-black;
+      }
+      kingEndgameShift[square]=kingEndgameTable[whiteEntry] - tables[0][whiteEntry];
+      kingEndgameShift[64 + square]=-(kingEndgameTable[blackEntry] - tables[0][blackEntry]);
+
+      var lanes=files[col] | adjacentFiles[col];
+      var ahead=row == 7 ? 0 : -1L << (row + 1) * 8;
+      var behind=row == 0 ? 0 : -1L >>> (8 - row) * 8;
+      passedMasks[square]=lanes & ahead;
+      passedMasks[64 + square]=lanes & behind;
+    }
+  }
+
+  private Evaluation() {
+  }
+
+  /**
+   * @return the position's score in centipawns, positive when white is better
+   */
+  public static int evaluate(ChessGame game) {
+    return evaluate(game.getBoard());
+  }
+
+  public static int evaluate(ChessBoard board) {
+    var white=ChessGame.TeamColor.WHITE;
+    var black=ChessGame.TeamColor.BLACK;
+    var score=board.getPieceSquareScore();
+
+    var whitePawns=board.getPieces(white, ChessPiece.PieceType.PAWN);
+    var blackPawns=board.getPieces(black, ChessPiece.PieceType.PAWN);
+    score+=pawnStructure(whitePawns, blackPawns, white) - pawnStructure(blackPawns, whitePawns, black);
+
+    if (nonPawnMaterial(board) <= endgameMaterial) {
+      var whiteKing=board.getPieces(white, ChessPiece.PieceType.KING);
+      var blackKing=board.getPieces(black, ChessPiece.PieceType.KING);
+      if (whiteKing != 0) score+=kingEndgameShift[Long.numberOfTrailingZeros(whiteKing)];
+      if (blackKing != 0) score+=kingEndgameShift[64 + Long.numberOfTrailingZeros(blackKing)];
+    }
+    return score;
+  }
+
+  /**
+   * @param piece  piece on the square, may be null
+   * @param square {@code row * 8 + column}
+   * @return the piece's value plus its piece-square entry, negative for black,
+   * or 0 for an empty square
+   */
+  public static int pieceSquare(ChessPiece piece, int square) {
+    if (piece == null) return 0;
+    return pieceSquare[PieceImple.kindIndex(piece.getTeamColor(), piece.getPieceType()) * 64 + square];
+  }
+
+  static int pieceSquare(int kind, int square) {
+    return pieceSquare[kind * 64 + square];
+  }
+
+  // doubled and isolated pawns cost, passed pawns gain more the further they are
+  private static int pawnStructure(long own, long enemy, ChessGame.TeamColor color) {
+    var score=0;
+    for (int file=0; file < 8; ++file) {
+      var onFile=Long.bitCount(own & files[file]);
+      if (onFile == 0) continue;
+      score-=(onFile - 1) * doubledPawn;
+      if ((own & adjacentFiles[file]) == 0) score-=onFile * isolatedPawn;
+    }
+
+    var white=color == ChessGame.TeamColor.WHITE;
+    for (var pawns=own; pawns != 0; pawns&=pawns - 1) {
+      var square=Long.numberOfTrailingZeros(pawns);
+      if ((enemy & passedMasks[color.ordinal() * 64 + square]) == 0) {
+        score+=passedPawn[white ? square >>> 3 : 7 - (square >>> 3)];
+      }
+    }
+    return score;
+  }
+
+  private static int nonPawnMaterial(ChessBoard board) {
+    var material=0;
+    for (var color : ChessGame.TeamColor.values()) {
+      for (var type : ChessPiece.PieceType.values()) {
+        if (type == ChessPiece.PieceType.PAWN || type == ChessPiece.PieceType.KING) continue;
+        material+=Long.bitCount(board.getPieces(color, type)) * pieceValues[type.ordinal()];
+      }
+    }
+    return material;
+  }
+}
@@ -0,0 +1,208 @@
+package chess;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Reads and writes Forsyth-Edwards Notation. Parsing walks the characters in
+ * place, straight from a {@link CharSequence} or the remaining bytes of a
+ * {@link ByteBuffer}, without splitting the text into substrings, so loading
+ * many positions costs little more than placing the pieces.
+ * <p>
+ * Castling rights are a bit set as in {@link GameImple#getCastlingRights()}:
+ * bit 0 white kingside, bit 1 white queenside, bit 2 black kingside, bit 3
+ * black queenside. The en passant target is a square, {@code row * 8 + column},
+ * or -1 for none.
+ */
+public final class Fen {
+  public static final String startPosition="rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+  private static final String castlingLetters="KQkq";
+
+  private Fen() {
+  }
+
+  /**
+   * @throws IllegalArgumentException if the text is not valid FEN
+   */
+  public static FenPosition parse(CharSequence fen) {
+    return new Parser(fen, null, 0, fen.length()).parse();
+  }
+
+  /**
+   * Parses the buffer's remaining bytes as ASCII, without moving its position
+   *
+   * @throws IllegalArgumentException if the text is not valid FEN
+   */
+  public static FenPosition parse(ByteBuffer fen) {
+    return new Parser(null, fen, fen.position(), fen.limit()).parse();
+  }
+
+  /**
+   * Formats a game with its own castling rights, en passant square and move counters
+   */
+  public static String format(GameImple game) {
+    return format(game, game.getCastlingRights(), game.getEnPassantSquare(), game.getHalfmoveClock(), game.getFullmoveNumber());
+  }
+
+  public static String format(FenPosition position) {
+    return format(position.game(), position.castlingRights(), position.enPassantSquare(),
+            position.halfmoveClock(), position.fullmoveNumber());
+  }
+
+  public static String format(ChessGame game, int castlingRights, int enPassantSquare, int halfmoveClock, int fullmoveNumber) {
+    var sb=new StringBuilder(90);
+    var board=game.getBoard();
+    for (int row=7; row >= 0; --row) {
+      var empty=0;
+      for (int col=0; col < 8; ++col) {
+        var piece=board.getPiece(PositionImple.of(row, col));
+        if (piece == null) {
+          ++empty;
+          continue;
+        }
+        if (empty > 0) sb.append(empty);
+        empty=0;
+        sb.append(PieceImple.of(piece.getTeamColor(), piece.getPieceType()));
+      }
+      if (empty > 0) sb.append(empty);
+      if (row > 0) sb.append('/');
+    }
+
+    sb.append(game.getTeamTurn() == ChessGame.TeamColor.WHITE ? " w " : " b ");
+    if (castlingRights == 0) sb.append('-');
+    for (int right=0; right < 4; ++right) {
+      if ((castlingRights & 1 << right) != 0) sb.append(castlingLetters.charAt(right));
+    }
+    sb.append(' ');
+    if (enPassantSquare < 0) sb.append('-');
+    else sb.append((char) ('a' + (enPassantSquare & 7))).append((char) ('1' + (enPassantSquare >>> 3)));
+    return sb.append(' ').append(halfmoveClock).append(' ').append(fullmoveNumber).toString();
+  }
+
+  /**
+   * A parsed FEN record
+   *
+   * @param game            pieces and side to move
+   * @param castlingRights  castling bit set, see {@link Fen}
+   * @param enPassantSquare square a pawn can capture onto en passant, or -1
+   * @param halfmoveClock   plies since the last capture or pawn move
+   * @param fullmoveNumber  move number, starting at 1 and counting up after black moves
+   */
+  public record FenPosition(GameImple game, int castlingRights, int enPassantSquare, int halfmoveClock,
+                            int fullmoveNumber) {
+  }
+
+  // reads from exactly one of text or bytes
+  private static final class Parser {
+    private final CharSequence text;
+    private final ByteBuffer bytes;
+    private final int end;
+    private int index;
+
+    Parser(CharSequence text, ByteBuffer bytes, int start, int end) {
+      this.text=text;
+      this.bytes=bytes;
+      this.index=start;
+      this.end=end;
+    }
+
+    FenPosition parse() {
+      var game=new GameImple();
+      parseBoard(game.getBoard());
+
+      expect(' ');
+      var side=next();
+      if (side == 'w') game.setTeamTurn(ChessGame.TeamColor.WHITE);
+      else if (side == 'b') game.setTeamTurn(ChessGame.TeamColor.BLACK);
+      else throw error("side to move must be w or b");
+
+      expect(' ');
+      var castlingRights=parseCastling();
+      expect(' ');
+      var enPassantSquare=parseEnPassant();
+
+      // the move counters are often left off, as in EPD
+      var halfmoveClock=0;
+      var fullmoveNumber=1;
+      if (index < end) {
+        expect(' ');
+        halfmoveClock=parseNumber();
+        expect(' ');
+        fullmoveNumber=parseNumber();
+      }
+      if (index < end) throw error("unexpected text after the position");
+      game.setCastlingRights(castlingRights);
+      // the game drops a square no pawn can capture onto, as play would; the position keeps it as written
+      game.setEnPassantSquare(enPassantSquare);
+      game.setHalfmoveClock(halfmoveClock);
+      game.setFullmoveNumber(fullmoveNumber);
+      return new FenPosition(game, castlingRights, enPassantSquare, halfmoveClock, fullmoveNumber);
+    }
+
+    private void parseBoard(ChessBoard board) {
+      for (int row=7; row >= 0; --row) {
+        var col=0;
+        while (col < 8) {
+          var c=next();
+          if (c >= '1' && c <= '8') col+=c - '0';
+          else {
+            var piece=PieceImple.deserialize(c);
+            if (piece == null) throw error("unknown piece '" + c + "'");
+            board.addPiece(PositionImple.of(row, col++), piece);
+          }
+        }
+        if (col != 8) throw error("rank " + (row + 1) + " does not have 8 squares");
+        if (row > 0) expect('/');
+      }
+    }
+
+    private int parseCastling() {
+      if (peek() == '-') {
+        ++index;
+        return 0;
+      }
+      var rights=0;
+      while (index < end && peek() != ' ') {
+        var right=castlingLetters.indexOf(next());
+        if (right < 0) throw error("castling rights must be made of KQkq");
+        rights|=1 << right;
+      }
+      return rights;
+    }
+
+    private int parseEnPassant() {
+      var file=next();
+      if (file == '-') return -1;
+      var rank=next();
+      if (file < 'a' || file > 'h' || (rank != '3' && rank != '6')) throw error("bad en passant square");
+      return (rank - '1') * 8 + file - 'a';
+    }
+
+    private int parseNumber() {
+      var start=index;
+      var value=0;
+      while (index < end && peek() >= '0' && peek() <= '9') value=value * 10 + next() - '0';
+      if (index == start) throw error("expected a number");
+      return value;
+    }
+
+    private void expect(char expected) {
+      if (next() != expected) throw error("expected '" + expected + "'");
+    }
+
+    private char next() {
+      var c=peek();
+      ++index;
+      return c;
+    }
+
+    private char peek() {
+      if (index >= end) throw new IllegalArgumentException("FEN ended early");
+      return text != null ? text.charAt(index) : (char) (bytes.get(index) & 0xFF);
+    }
+
+    private IllegalArgumentException error(String message) {
+      return new IllegalArgumentException("Bad FEN at " + (index - 1) + ": " + message);
+    }
+  }
+}
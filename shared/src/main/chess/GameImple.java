@@ -1,14 +1,58 @@
 package chess;
 
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
-import java.util.stream.Collectors;
 
 public class GameImple implements ChessGame {
+  /**
+   * Castling rights, as bits of {@link #getCastlingRights()}
+   */
+  public static final int whiteKingside=1, whiteQueenside=2, blackKingside=4, blackQueenside=8, allCastling=15;
+
+  // castling rights kept by a move from or to each square: moving a king or a
+  // rook, or capturing a rook, gives up the rights that piece was needed for
+  private static final int[] castlingKept=new int[64];
+
+  static {
+    Arrays.fill(castlingKept, allCastling);
+    castlingKept[0]=allCastling & ~whiteQueenside;
+    castlingKept[4]=allCastling & ~(whiteKingside | whiteQueenside);
+    castlingKept[7]=allCastling & ~whiteKingside;
+    castlingKept[56]=allCastling & ~blackQueenside;
+    castlingKept[60]=allCastling & ~(blackKingside | blackQueenside);
+    castlingKept[63]=allCastling & ~blackKingside;
+  }
+
   TeamColor currentTeamTurn=TeamColor.WHITE;
-  BoardImple board=new BoardImple();
+  ChessBoard board=new BoardImple();
+  // rights not yet given up by a move; the king and rook still have to be on
+  // their squares for one to count, see getCastlingRights()
+  private int castlingRights=allCastling;
+  // square a pawn can capture onto en passant, or -1
+  private int enPassantSquare=-1;
+
+  // undo stack for makeMove(int): each record is the packed move with the
+  // previous turn in bit 15, the previous halfmove clock in bits 16-31, the
+  // previous castling rights in bits 32-35 and en passant square plus one in
+  // bits 36-42, next to the piece that moved and the piece it captured
+  private long[] undoRecords=new long[64];
+  private ChessPiece[] undoPieces=new ChessPiece[128];
+  private int undoSize;
+
+  // hash of every earlier position, oldest first, for finding repetitions
+  private long[] hashHistory=new long[64];
+  private int historySize;
+  // plies since the last capture or pawn move
+  private int halfmoveClock;
+  private int fullmoveNumber=1;
+
+  private final MoveList moveBuffer=new MoveList();
+  private final LegalMoveGenerator legalMoveGenerator=new LegalMoveGenerator();
+  // legal moves and status shared with other games, or null to always work them out
+  private MoveCache moveCache;
 
   public static void main(String[] args) {
     var game=new GameImple();
@@ -26,6 +70,39 @@ public class GameImple implements ChessGame {
     return game;
   }
 
+  /**
+   * Copies the pieces and turn of any game into a new GameImple, which can then
+   * be played on without changing the original
+   */
+  public static GameImple copyOf(ChessGame other) {
+    var game=new GameImple();
+    game.setTeamTurn(other.getTeamTurn());
+    var source=other.getBoard();
+    for (int square=0; square < 64; ++square) {
+      var piece=source.getPiece(PositionImple.of(square));
+      if (piece != null) game.board.addPiece(PositionImple.of(square), piece);
+    }
+    // the history comes along so repetitions are still seen, but moves before the copy cannot be taken back
+    if (other instanceof GameImple original) {
+      game.hashHistory=Arrays.copyOf(original.hashHistory, Math.max(original.historySize, 64));
+      game.historySize=original.historySize;
+      game.halfmoveClock=original.halfmoveClock;
+      game.fullmoveNumber=original.fullmoveNumber;
+      game.castlingRights=original.castlingRights;
+      game.enPassantSquare=original.enPassantSquare;
+      game.moveCache=original.moveCache;
+    }
+    return game;
+  }
+
+  private static int square(ChessPosition position) {
+    return position.getRow() * 8 + position.getColumn();
+  }
+
+  private static TeamColor opponent(TeamColor teamColor) {
+    return teamColor == TeamColor.BLACK ? TeamColor.WHITE : TeamColor.BLACK;
+  }
+
   @Override
   public TeamColor getTeamTurn() {
     return currentTeamTurn;
@@ -41,7 +118,47 @@ public class GameImple implements ChessGame {
     var piece=board.getPiece(startPosition);
     if (piece == null) return Collections.emptyList();
 
-    return piece.pieceMoves(board, startPosition).stream().filter(move -> !moveCausesCheck(move)).collect(Collectors.toSet());
+    var buffer=new MoveList(32);
+    legalMoveGenerator.generate(board, square(startPosition), getCastlingRights(), enPassantSquare, buffer);
+    return toMoveSet(buffer);
+  }
+
+  @Override
+  public Collection<ChessMove> allLegalMoves(TeamColor teamColor) {
+    var buffer=new MoveList();
+    legalMoves(teamColor, buffer);
+    return toMoveSet(buffer);
+  }
+
+  /**
+   * Every legal move of the side to move, worked out in one pass and grouped
+   * by start square, or taken from the move cache if there is one
+   */
+  public LegalMoveList allLegalMoves() {
+    return moveCache != null ? moveCache.get(this).moves() : generateLegalMoveList();
+  }
+
+  LegalMoveList generateLegalMoveList() {
+    moveBuffer.clear();
+    legalMoves(currentTeamTurn, moveBuffer);
+    return new LegalMoveList(moveBuffer);
+  }
+
+  /**
+   * Appends every legal move of a team to a buffer as packed moves (see
+   * {@link PackedMove}), without allocating or touching the board
+   *
+   * @param teamColor team to generate moves for
+   * @param moves     buffer the moves are appended to
+   */
+  public void legalMoves(TeamColor teamColor, MoveList moves) {
+    legalMoveGenerator.generate(board, teamColor, getCastlingRights(), enPassantSquare, moves);
+  }
+
+  private static Set<ChessMove> toMoveSet(MoveList buffer) {
+    Set<ChessMove> moves=new HashSet<>();
+    for (int index=0; index < buffer.size(); ++index) moves.add(PackedMove.toChessMove(buffer.get(index)));
+    return moves;
   }
 
   @Override
@@ -52,103 +169,274 @@ public class GameImple implements ChessGame {
     var placeToMove=board.getPiece(move.getEndPosition());
     if (placeToMove != null && pieceToMove.getTeamColor() == placeToMove.getTeamColor())
       throw new InvalidMoveException("Cannot capture friendly pieces!");
-    var allMoves=pieceToMove.pieceMoves(board, move.getStartPosition());
-    if (!allMoves.contains(move)) throw new InvalidMoveException("Not a valid move!");
-    board.addPiece(move.getStartPosition(), null);
-    if (move.getPromotionPiece() == null) board.addPiece(move.getEndPosition(), pieceToMove);
-    else
-      board.addPiece(move.getEndPosition(), new PieceImple(pieceToMove.getTeamColor(), move.getPromotionPiece()));
-    if (isInCheck(currentTeamTurn)) {
-      if (placeToMove == null) board.addPiece(move.getEndPosition(), null);
-      else
-        board.addPiece(move.getEndPosition(), new PieceImple(pieceToMove.getTeamColor(), placeToMove.getPieceType()));
-      board.addPiece(move.getStartPosition(), new PieceImple(pieceToMove.getTeamColor(), pieceToMove.getPieceType()));
+
+    var packedMove=PackedMove.of(move);
+    // a move the cache lists is legal; anything else goes through the checks below for its error message
+    if (moveCache != null && moveCache.get(this).moves().contains(packedMove)) {
+      makeMove(packedMove);
+      return;
+    }
+
+    moveBuffer.clear();
+    MoveCalculator.getMoves(board, PackedMove.from(packedMove), pieceToMove, getCastlingRights(), enPassantSquare, moveBuffer);
+    if (!moveBuffer.contains(packedMove)) throw new InvalidMoveException("Not a valid move!");
+
+    makeMove(packedMove);
+    if (isInCheck(pieceToMove.getTeamColor())) {
+      unmakeMove();
       throw new InvalidMoveException("Move would result in check!");
     }
-    setTeamTurn(currentTeamTurn == TeamColor.BLACK ? TeamColor.WHITE : TeamColor.BLACK);
   }
 
-  private boolean moveCausesCheck(ChessMove move) {
-    var pieceToMove=board.getPiece(move.getStartPosition());
-    var pieceAtEndPos=board.getPiece(move.getEndPosition());
+  /**
+   * Plays a packed move (see {@link PackedMove}) without checking that it is
+   * legal, and records what is needed to take it back with {@link #unmakeMove()}
+   *
+   * @param move packed move to play
+   */
+  public void makeMove(int move) {
+    var fromSquare=PackedMove.from(move);
+    var toSquare=PackedMove.to(move);
+    var from=PositionImple.of(fromSquare);
+    var to=PositionImple.of(toSquare);
+    var movedPiece=board.getPiece(from);
+    var enPassant=isEnPassant(fromSquare, toSquare, movedPiece, enPassantSquare);
+    var capturedPiece=board.getPiece(enPassant ? PositionImple.of(enPassantVictim(fromSquare, toSquare)) : to);
+
+    if (undoSize == undoRecords.length) {
+      undoRecords=Arrays.copyOf(undoRecords, undoSize * 2);
+      undoPieces=Arrays.copyOf(undoPieces, undoSize * 4);
+    }
+    undoRecords[undoSize]=move | currentTeamTurn.ordinal() << 15 | (long) Math.min(halfmoveClock, 0xFFFF) << 16 |
+            (long) castlingRights << 32 | (long) (enPassantSquare + 1) << 36;
+    undoPieces[undoSize * 2]=movedPiece;
+    undoPieces[undoSize * 2 + 1]=capturedPiece;
+    ++undoSize;
+
+    if (historySize == hashHistory.length) hashHistory=Arrays.copyOf(hashHistory, historySize * 2);
+    hashHistory[historySize++]=getHash();
+    var pawn=movedPiece.getPieceType() == ChessPiece.PieceType.PAWN;
+    if (capturedPiece != null || pawn) halfmoveClock=0;
+    else ++halfmoveClock;
+    if (currentTeamTurn == TeamColor.BLACK) ++fullmoveNumber;
+
+    var promotion=PackedMove.promotion(move);
+    if (enPassant) board.addPiece(PositionImple.of(enPassantVictim(fromSquare, toSquare)), null);
+    board.addPiece(from, null);
+    board.addPiece(to, promotion == null ? movedPiece : PieceImple.of(movedPiece.getTeamColor(), promotion));
+    if (isCastle(fromSquare, toSquare, movedPiece)) moveCastlingRook(fromSquare, toSquare, false);
+
+    castlingRights&=castlingKept[fromSquare] & castlingKept[toSquare];
+    enPassantSquare=-1;
+    // only kept when a pawn can take it, so a double step nobody can answer hashes like any other move
+    if (pawn && Math.abs(toSquare - fromSquare) == 16 && pawnBeside(toSquare, opponent(currentTeamTurn))) {
+      enPassantSquare=(fromSquare + toSquare) / 2;
+    }
+    currentTeamTurn=opponent(currentTeamTurn);
+  }
+
+  /**
+   * Takes back the last move played with {@link #makeMove(int)}, restoring the
+   * moved and captured pieces and the turn
+   */
+  public void unmakeMove() {
+    --undoSize;
+    var record=undoRecords[undoSize];
+    var move=(int) record;
+    var fromSquare=PackedMove.from(move);
+    var toSquare=PackedMove.to(move);
+    var movedPiece=undoPieces[undoSize * 2];
+    var capturedPiece=undoPieces[undoSize * 2 + 1];
+    castlingRights=(int) (record >>> 32 & 0xF);
+    enPassantSquare=(int) (record >>> 36 & 0x7F) - 1;
+
+    board.addPiece(PositionImple.of(fromSquare), movedPiece);
+    if (isEnPassant(fromSquare, toSquare, movedPiece, enPassantSquare)) {
+      board.addPiece(PositionImple.of(toSquare), null);
+      board.addPiece(PositionImple.of(enPassantVictim(fromSquare, toSquare)), capturedPiece);
+    } else board.addPiece(PositionImple.of(toSquare), capturedPiece);
+    if (isCastle(fromSquare, toSquare, movedPiece)) moveCastlingRook(fromSquare, toSquare, true);
+
+    undoPieces[undoSize * 2]=null;
+    undoPieces[undoSize * 2 + 1]=null;
+    currentTeamTurn=TeamColor.values()[move >>> 15 & 1];
+    halfmoveClock=(int) (record >>> 16 & 0xFFFF);
+    if (currentTeamTurn == TeamColor.BLACK) --fullmoveNumber;
+    --historySize;
+  }
+
+  private static boolean isEnPassant(int from, int to, ChessPiece piece, int enPassantSquare) {
+    return to == enPassantSquare && (from & 7) != (to & 7) && piece.getPieceType() == ChessPiece.PieceType.PAWN;
+  }
 
-    var startPos=move.getStartPosition();
-    var endPos=move.getEndPosition();
+  // the pawn taken en passant is beside the capturing pawn, on the file it moves to
+  private static int enPassantVictim(int from, int to) {
+    return (from & ~7) | (to & 7);
+  }
+
+  private static boolean isCastle(int from, int to, ChessPiece piece) {
+    return Math.abs(to - from) == 2 && piece.getPieceType() == ChessPiece.PieceType.KING;
+  }
 
-    var teamColor=pieceToMove.getTeamColor();
-    var newPieceType=move.getPromotionPiece() != null ? move.getPromotionPiece() : pieceToMove.getPieceType();
-    var newPiece=new PieceImple(teamColor, newPieceType);
+  // the rook jumps from its corner to the square the king passed over, or back
+  private void moveCastlingRook(int kingFrom, int kingTo, boolean undo) {
+    var corner=kingTo > kingFrom ? kingFrom + 3 : kingFrom - 4;
+    var passed=(kingFrom + kingTo) / 2;
+    var rookFrom=PositionImple.of(undo ? passed : corner);
+    var rookTo=PositionImple.of(undo ? corner : passed);
+    var rook=board.getPiece(rookFrom);
+    board.addPiece(rookFrom, null);
+    board.addPiece(rookTo, rook);
+  }
+
+  private boolean pawnBeside(int square, TeamColor color) {
+    var col=square & 7;
+    return (col > 0 && MoveCalculator.isPiece(board.getPiece(PositionImple.of(square - 1)), color, ChessPiece.PieceType.PAWN)) ||
+            (col < 7 && MoveCalculator.isPiece(board.getPiece(PositionImple.of(square + 1)), color, ChessPiece.PieceType.PAWN));
+  }
+
+  /**
+   * Castling rights that still hold: bit 0 white kingside ({@link #whiteKingside}),
+   * bit 1 white queenside, bit 2 black kingside, bit 3 black queenside. A right
+   * is lost once its king or rook moves, and only counts while both are on
+   * their starting squares, so a board set up piece by piece gets the rights
+   * its placement allows.
+   */
+  public int getCastlingRights() {
+    if (castlingRights == 0) return 0;
+    var rights=castlingRights;
+    if (!isPiece(4, TeamColor.WHITE, ChessPiece.PieceType.KING)) rights&=~(whiteKingside | whiteQueenside);
+    if (!isPiece(60, TeamColor.BLACK, ChessPiece.PieceType.KING)) rights&=~(blackKingside | blackQueenside);
+    if ((rights & whiteKingside) != 0 && !isPiece(7, TeamColor.WHITE, ChessPiece.PieceType.ROOK)) rights&=~whiteKingside;
+    if ((rights & whiteQueenside) != 0 && !isPiece(0, TeamColor.WHITE, ChessPiece.PieceType.ROOK)) rights&=~whiteQueenside;
+    if ((rights & blackKingside) != 0 && !isPiece(63, TeamColor.BLACK, ChessPiece.PieceType.ROOK)) rights&=~blackKingside;
+    if ((rights & blackQueenside) != 0 && !isPiece(56, TeamColor.BLACK, ChessPiece.PieceType.ROOK)) rights&=~blackQueenside;
+    return rights;
+  }
 
-    board.addPiece(startPos, null);
-    board.addPiece(endPos, newPiece);
+  private boolean isPiece(int square, TeamColor color, ChessPiece.PieceType type) {
+    return MoveCalculator.isPiece(board.getPiece(PositionImple.of(square)), color, type);
+  }
 
-    boolean causesCheck=isInCheck(teamColor);
+  public void setCastlingRights(int castlingRights) {
+    this.castlingRights=castlingRights & allCastling;
+  }
 
-    board.addPiece(startPos, pieceToMove);
-    board.addPiece(endPos, pieceAtEndPos);
+  /**
+   * @return the square a pawn of the team to move can capture onto en passant,
+   * {@code row * 8 + column}, or -1. Only set after a double step with an
+   * enemy pawn beside it.
+   */
+  public int getEnPassantSquare() {
+    return enPassantSquare;
+  }
 
-    return causesCheck;
+  /**
+   * Sets the square the team to move may capture onto en passant. Kept only
+   * if a pawn of that team stands beside the enemy pawn that stepped over it,
+   * as after a move, so a position set up this way equals and hashes the same
+   * as the one reached by play. Set the board and turn first.
+   *
+   * @param enPassantSquare {@code row * 8 + column}, or -1 for none
+   */
+  public void setEnPassantSquare(int enPassantSquare) {
+    this.enPassantSquare=-1;
+    if (enPassantSquare < 0) return;
+    var pawnSquare=currentTeamTurn == TeamColor.WHITE ? enPassantSquare - 8 : enPassantSquare + 8;
+    if (pawnSquare < 0 || pawnSquare >= 64) return;
+    var pawn=board.getPiece(PositionImple.of(pawnSquare));
+    if (MoveCalculator.isPiece(pawn, opponent(currentTeamTurn), ChessPiece.PieceType.PAWN) && pawnBeside(pawnSquare, currentTeamTurn)) {
+      this.enPassantSquare=enPassantSquare;
+    }
   }
 
-  private void getAllMoves(Set<ChessMove> blackMoves, Set<ChessMove> whiteMoves) {
-    for (int row=0; row < 8; ++row) {
-      for (int col=0; col < 8; ++col) {
-        var pos=new PositionImple(row, col);
-        var piece=board.getPiece(pos);
-        if (piece == null) continue;
-        if (piece.getTeamColor() == TeamColor.BLACK) blackMoves.addAll(piece.pieceMoves(board, pos));
-        else whiteMoves.addAll(piece.pieceMoves(board, pos));
-      }
+  /**
+   * Counts how many times the current position has occurred, this time
+   * included. Only positions since the last capture or pawn move can repeat,
+   * so only those are looked at, and only those with the same team to move.
+   *
+   * @return 1 for a position seen for the first time
+   */
+  public int repetitionCount() {
+    var hash=getHash();
+    var count=1;
+    var oldest=Math.max(0, historySize - halfmoveClock);
+    for (int index=historySize - 2; index >= oldest; index-=2) {
+      if (hashHistory[index] == hash) ++count;
     }
+    return count;
+  }
+
+  /**
+   * @return plies since the last capture or pawn move
+   */
+  public int getHalfmoveClock() {
+    return halfmoveClock;
+  }
+
+  public void setHalfmoveClock(int halfmoveClock) {
+    this.halfmoveClock=halfmoveClock;
+  }
+
+  /**
+   * @return the move number, starting at 1 and counting up after each black move
+   */
+  public int getFullmoveNumber() {
+    return fullmoveNumber;
+  }
+
+  public void setFullmoveNumber(int fullmoveNumber) {
+    this.fullmoveNumber=fullmoveNumber;
+  }
+
+  private boolean hasLegalMove(TeamColor teamColor) {
+    return legalMoveGenerator.hasLegalMove(board, teamColor, getCastlingRights(), enPassantSquare);
   }
 
   @Override
   public boolean isInCheck(TeamColor teamColor) {
-    var moves=new HashSet<ChessPosition>();
-    ChessPosition kingPos=new PositionImple(-1, -1);
-    for (int row=0; row < 8; ++row) {
-      for (int col=0; col < 8; ++col) {
-        var pos=new PositionImple(row, col);
-        var piece=board.getPiece(pos);
-        if (piece == null) continue;
-        if (piece.getTeamColor() == teamColor && piece.getPieceType() == ChessPiece.PieceType.KING) kingPos=pos;
-        if (piece.getTeamColor() == teamColor) continue;
-        for (var move : piece.pieceMoves(board, pos)) moves.add(move.getEndPosition());
-      }
-    }
-    return moves.contains(kingPos);
+    var kingPos=board.getKingPosition(teamColor);
+    if (kingPos == null) return false;
+    return MoveCalculator.isSquareAttacked(board, square(kingPos), opponent(teamColor));
   }
 
   @Override
   public boolean isInCheckmate(TeamColor teamColor) {
-    var blackMoves=new HashSet<ChessMove>();
-    var whiteMoves=new HashSet<ChessMove>();
-    getAllMoves(blackMoves, whiteMoves);
-    var moves=teamColor == TeamColor.BLACK ? blackMoves : whiteMoves;
-    for (var move : moves) {
-      if (!moveCausesCheck(move)) return false;
-    }
-    return true;
+    return evaluateStatus(teamColor) == GameStatus.CHECKMATE;
   }
 
   @Override
   public boolean isInStalemate(TeamColor teamColor) {
-    var kingsMoves=new HashSet<ChessMove>();
-    var enemyMoves=new HashSet<ChessMove>();
-    for (int row=0; row < 8; ++row) {
-      for (int col=0; col < 8; ++col) {
-        var pos=new PositionImple(row, col);
-        var piece=board.getPiece(pos);
-        if (piece == null) continue;
-        if (piece.getTeamColor() == teamColor) {
-          if (piece.getPieceType() == ChessPiece.PieceType.KING) kingsMoves.addAll(piece.pieceMoves(board, pos));
-          else if (!piece.pieceMoves(board, pos).isEmpty()) return false;
-        } else {
-          enemyMoves.addAll(piece.pieceMoves(board, pos));
-        }
-      }
-    }
-    return kingsMoves.stream().filter(enemyMoves::contains).collect(Collectors.toSet()).isEmpty();
+    return evaluateStatus(teamColor) == GameStatus.STALEMATE;
+  }
+
+  @Override
+  public GameStatus evaluateStatus(TeamColor teamColor) {
+    var status=moveCache != null && teamColor == currentTeamTurn ? moveCache.get(this).status() : positionStatus(teamColor);
+    // checkmate stands even on the move that would reach a draw
+    if (status == GameStatus.CHECKMATE || status == GameStatus.STALEMATE) return status;
+    if (repetitionCount() >= 3) return GameStatus.THREEFOLD_REPETITION;
+    if (halfmoveClock >= 100) return GameStatus.FIFTY_MOVE_RULE;
+    return status;
+  }
+
+  // what the pieces alone decide: mate, stalemate, check or nothing
+  private GameStatus positionStatus(TeamColor teamColor) {
+    var inCheck=isInCheck(teamColor);
+    if (!hasLegalMove(teamColor)) return inCheck ? GameStatus.CHECKMATE : GameStatus.STALEMATE;
+    return inCheck ? GameStatus.CHECK : GameStatus.NORMAL;
+  }
+
+  public MoveCache getMoveCache() {
+    return moveCache;
+  }
+
+  /**
+   * @param moveCache cache to look legal moves and status up in, shared with
+   *                  other games, or null to work them out every time
+   */
+  public void setMoveCache(MoveCache moveCache) {
+    this.moveCache=moveCache;
   }
 
   @Override
@@ -158,7 +446,21 @@ public class GameImple implements ChessGame {
 
   @Override
   public void setBoard(ChessBoard board) {
-    this.board=(BoardImple) board;
+    this.board=board;
+    Arrays.fill(undoPieces, 0, undoSize * 2, null);
+    undoSize=0;
+    historySize=0;
+    halfmoveClock=0;
+    fullmoveNumber=1;
+    castlingRights=allCastling;
+    enPassantSquare=-1;
+  }
+
+  @Override
+  public long getHash() {
+    var hash=board.getHash() ^ Zobrist.castlingKey(getCastlingRights());
+    if (enPassantSquare >= 0) hash^=Zobrist.enPassantKey(enPassantSquare & 7);
+    return currentTeamTurn == TeamColor.BLACK ? hash ^ Zobrist.blackToMove : hash;
   }
 
   @Override
@@ -166,7 +468,14 @@ public class GameImple implements ChessGame {
     if (obj == null) return false;
     if (obj.getClass() != getClass()) return false;
     var otherGame=(GameImple) obj;
-    return board.equals(otherGame.board);
+    if (getHash() != otherGame.getHash()) return false;
+    return currentTeamTurn == otherGame.currentTeamTurn && enPassantSquare == otherGame.enPassantSquare &&
+            getCastlingRights() == otherGame.getCastlingRights() && board.equals(otherGame.board);
+  }
+
+  @Override
+  public int hashCode() {
+    return Long.hashCode(getHash());
   }
 
   @Override
@@ -0,0 +1,191 @@
+package chess;
+
+/**
+ * Generates only legal moves. Checkers and pinned pieces are worked out once
+ * per position by probing outward from the king; after that a move is legal if
+ * it stays on its piece's pin ray and, when in check, captures the checker or
+ * blocks it. King moves are tested against attacks with the king lifted off
+ * the board. En passant, which also empties the captured pawn's square, is
+ * tested by looking along the king's lines with both pawns lifted. Nothing is
+ * ever played on the board, so several threads can read one board at once.
+ * <p>
+ * Keeps its scratch state between calls, so each thread needs its own instance.
+ */
+class LegalMoveGenerator {
+  private final MoveList pseudoMoves=new MoveList();
+  private final MoveList pieceMoves=new MoveList();
+  // for each pinned square, the squares between the king and the pinner, pinner included
+  private final long[] pinRays=new long[64];
+
+  private ChessBoard board;
+  private ChessGame.TeamColor color;
+  private int castlingRights;
+  private int enPassantSquare;
+  private int kingSquare;
+  private int checkers;
+  // squares a non-king move has to land on to deal with check, all of them when not in check
+  private long checkMask;
+  private long pinned;
+
+  /**
+   * Appends every legal move of a team to a buffer
+   *
+   * @param castlingRights  rights that hold on this board, see {@link GameImple#getCastlingRights()}
+   * @param enPassantSquare square a pawn can capture onto en passant, or -1
+   */
+  void generate(ChessBoard board, ChessGame.TeamColor color, int castlingRights, int enPassantSquare, MoveList moves) {
+    analyze(board, color, castlingRights, enPassantSquare);
+    for (int square=0; square < 64; ++square) {
+      var piece=board.getPiece(PositionImple.of(square));
+      if (piece != null && piece.getTeamColor() == color) addLegalMoves(square, piece, moves);
+    }
+  }
+
+  /**
+   * Appends the legal moves of the piece on a square to a buffer
+   */
+  void generate(ChessBoard board, int square, int castlingRights, int enPassantSquare, MoveList moves) {
+    var piece=board.getPiece(PositionImple.of(square));
+    if (piece == null) return;
+    analyze(board, piece.getTeamColor(), castlingRights, enPassantSquare);
+    addLegalMoves(square, piece, moves);
+  }
+
+  /**
+   * @return true as soon as any legal move of the team is found
+   */
+  boolean hasLegalMove(ChessBoard board, ChessGame.TeamColor color, int castlingRights, int enPassantSquare) {
+    analyze(board, color, castlingRights, enPassantSquare);
+    for (int square=0; square < 64; ++square) {
+      var piece=board.getPiece(PositionImple.of(square));
+      if (piece == null || piece.getTeamColor() != color) continue;
+      pieceMoves.clear();
+      addLegalMoves(square, piece, pieceMoves);
+      if (!pieceMoves.isEmpty()) return true;
+    }
+    return false;
+  }
+
+  private void addLegalMoves(int square, ChessPiece piece, MoveList moves) {
+    pseudoMoves.clear();
+    MoveCalculator.getMoves(board, square, piece, castlingRights, enPassantSquare, pseudoMoves);
+
+    if (square == kingSquare) {
+      var enemy=opponent(color);
+      for (int index=0; index < pseudoMoves.size(); ++index) {
+        var move=pseudoMoves.get(index);
+        if (!MoveCalculator.isSquareAttacked(board, PackedMove.to(move), enemy, kingSquare)) moves.add(move);
+      }
+      return;
+    }
+
+    // only the king can get out of double check
+    var allowed=checkers > 1 ? 0 : checkMask;
+    if ((pinned & 1L << square) != 0) allowed&=pinRays[square];
+    var pawn=piece.getPieceType() == ChessPiece.PieceType.PAWN;
+    for (int index=0; index < pseudoMoves.size(); ++index) {
+      var move=pseudoMoves.get(index);
+      var to=PackedMove.to(move);
+      if (pawn && to == enPassantSquare && (to & 7) != (square & 7)) {
+        if (enPassantIsLegal(square, to)) moves.add(move);
+      } else if ((allowed & 1L << to) != 0) moves.add(move);
+    }
+  }
+
+  // en passant empties a square the move does not land on, which can open a line to the king the pin rays miss
+  private boolean enPassantIsLegal(int from, int to) {
+    if (kingSquare < 0) return true;
+    var victim=(from & ~7) | (to & 7);
+    // a single check has to be captured or blocked like any other
+    if (checkers > 1 || (checkMask & (1L << to | 1L << victim)) == 0) return false;
+    var occupancy=board.getOccupancy() & ~(1L << from | 1L << victim) | 1L << to;
+    var enemy=opponent(color);
+    var queens=board.getPieces(enemy, ChessPiece.PieceType.QUEEN);
+    var straight=board.getPieces(enemy, ChessPiece.PieceType.ROOK) | queens;
+    var diagonal=board.getPieces(enemy, ChessPiece.PieceType.BISHOP) | queens;
+    return (SliderAttacks.rook(kingSquare, occupancy) & straight) == 0 &&
+            (SliderAttacks.bishop(kingSquare, occupancy) & diagonal) == 0;
+  }
+
+  private void analyze(ChessBoard board, ChessGame.TeamColor color, int castlingRights, int enPassantSquare) {
+    this.board=board;
+    this.color=color;
+    this.castlingRights=castlingRights;
+    this.enPassantSquare=enPassantSquare;
+    checkers=0;
+    checkMask=0;
+    pinned=0;
+
+    var kingPos=board.getKingPosition(color);
+    if (kingPos == null) {
+      // without a king nothing can be pinned or checked
+      kingSquare=-1;
+      checkMask=-1L;
+      return;
+    }
+    kingSquare=kingPos.getRow() * 8 + kingPos.getColumn();
+
+    var enemy=opponent(color);
+    var row=kingPos.getRow();
+    var col=kingPos.getColumn();
+
+    for (var jump : MoveCalculator.knightJumps) {
+      checkStep(row + jump[0], col + jump[1], enemy, ChessPiece.PieceType.KNIGHT);
+    }
+    var pawnRow=enemy == ChessGame.TeamColor.WHITE ? row - 1 : row + 1;
+    checkStep(pawnRow, col - 1, enemy, ChessPiece.PieceType.PAWN);
+    checkStep(pawnRow, col + 1, enemy, ChessPiece.PieceType.PAWN);
+
+    for (var direction : MoveCalculator.rookDirections) scanRay(row, col, direction, enemy, ChessPiece.PieceType.ROOK);
+    for (var direction : MoveCalculator.bishopDirections) scanRay(row, col, direction, enemy, ChessPiece.PieceType.BISHOP);
+
+    if (checkers == 0) checkMask=-1L;
+  }
+
+  private void checkStep(int row, int col, ChessGame.TeamColor enemy, ChessPiece.PieceType type) {
+    if (!MoveCalculator.onBoard(row, col)) return;
+    var square=row * 8 + col;
+    if (MoveCalculator.isPiece(board.getPiece(PositionImple.of(square)), enemy, type)) {
+      ++checkers;
+      checkMask|=1L << square;
+    }
+  }
+
+  // walks a ray out from the king: an enemy slider first is a check, one friendly piece then an enemy slider is a pin
+  private void scanRay(int row, int col, int[] direction, ChessGame.TeamColor enemy, ChessPiece.PieceType slider) {
+    long ray=0;
+    var blocker=-1;
+    row+=direction[0];
+    col+=direction[1];
+    while (MoveCalculator.onBoard(row, col)) {
+      var square=row * 8 + col;
+      ray|=1L << square;
+      var piece=board.getPiece(PositionImple.of(square));
+      if (piece != null) {
+        var isSlider=piece.getTeamColor() == enemy &&
+                (piece.getPieceType() == slider || piece.getPieceType() == ChessPiece.PieceType.QUEEN);
+        if (blocker < 0) {
+          if (isSlider) {
+            ++checkers;
+            checkMask|=ray;
+            return;
+          }
+          if (piece.getTeamColor() == enemy) return;
+          blocker=square;
+        } else {
+          if (isSlider) {
+            pinned|=1L << blocker;
+            pinRays[blocker]=ray;
+          }
+          return;
+        }
+      }
+      row+=direction[0];
+      col+=direction[1];
+    }
+  }
+
+  private static ChessGame.TeamColor opponent(ChessGame.TeamColor color) {
+    return color == ChessGame.TeamColor.BLACK ? ChessGame.TeamColor.WHITE : ChessGame.TeamColor.BLACK;
+  }
+}
@@ -0,0 +1,95 @@
+package chess;
+
+import java.util.ArrayList;
+import java.util.Collection;
+
+/**
+ * Every legal move of a position, as packed moves (see {@link PackedMove})
+ * grouped by the square they start from, so the moves of one piece are a slice
+ * of one array. Made in a single pass by {@link GameImple#allLegalMoves()},
+ * which works out the king, checks and pins once for every piece.
+ * <p>
+ * A snapshot: it does not follow later moves on the game.
+ */
+public final class LegalMoveList {
+  private final int[] moves;
+  // the moves from square s are moves[starts[s]] up to, not including, moves[starts[s + 1]]
+  private final int[] starts=new int[65];
+
+  LegalMoveList(MoveList generated) {
+    moves=new int[generated.size()];
+    for (int index=0; index < generated.size(); ++index) ++starts[PackedMove.from(generated.get(index)) + 1];
+    for (int square=0; square < 64; ++square) starts[square + 1]+=starts[square];
+    var next=new int[64];
+    System.arraycopy(starts, 0, next, 0, 64);
+    for (int index=0; index < generated.size(); ++index) {
+      var move=generated.get(index);
+      moves[next[PackedMove.from(move)]++]=move;
+    }
+  }
+
+  public int size() {
+    return moves.length;
+  }
+
+  public boolean isEmpty() {
+    return moves.length == 0;
+  }
+
+  /**
+   * @param index between 0 and {@link #size()}; moves are in order of their start square
+   */
+  public int get(int index) {
+    return moves[index];
+  }
+
+  /**
+   * @param square {@code row * 8 + column}
+   * @return index of the first move from the square
+   */
+  public int start(int square) {
+    return starts[square];
+  }
+
+  /**
+   * @return index just past the last move from the square
+   */
+  public int end(int square) {
+    return starts[square + 1];
+  }
+
+  public int count(int square) {
+    return starts[square + 1] - starts[square];
+  }
+
+  /**
+   * @return the squares the piece on a square can move to, one bit per square
+   */
+  public long targets(int square) {
+    long targets=0;
+    for (int index=starts[square]; index < starts[square + 1]; ++index) targets|=1L << PackedMove.to(moves[index]);
+    return targets;
+  }
+
+  public boolean contains(int move) {
+    var from=PackedMove.from(move);
+    for (int index=starts[from]; index < starts[from + 1]; ++index) {
+      if (moves[index] == move) return true;
+    }
+    return false;
+  }
+
+  public boolean contains(ChessMove move) {
+    return contains(PackedMove.of(move));
+  }
+
+  /**
+   * @return the moves of the piece on a square, as {@link ChessMove}s
+   */
+  public Collection<ChessMove> movesFrom(ChessPosition position) {
+    var square=position.getRow() * 8 + position.getColumn();
+    var result=new ArrayList<ChessMove>(count(square));
+    for (int index=starts[square]; index < starts[square + 1]; ++index) result.add(PackedMove.toChessMove(moves[index]));
+    return result;
+  }
+}
@@ -0,0 +1,83 @@
+package chess;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fixed-size cache of each position's legal moves and status, keyed by 64-bit
+ * position hash (see {@link GameImple#getHash()}), meant to be shared by every
+ * game: openings repeat from game to game, and the players and observers of a
+ * game ask about the same position again and again.
+ * <p>
+ * Each position has one slot, picked by the low bits of its hash, and a new
+ * position evicts whatever was there, so the cache never holds more than its
+ * capacity. Entries are immutable and slots are swapped atomically, so
+ * threads share it without locks; two threads missing the same position at
+ * once both work it out, and either result is right.
+ */
+public class MoveCache {
+  /**
+   * @param hash   position the entry is for
+   * @param moves  legal moves of the side to move
+   * @param status {@link ChessGame.GameStatus#CHECKMATE}, {@code STALEMATE},
+   *               {@code CHECK} or {@code NORMAL}: what the pieces alone
+   *               decide, without repetitions or the fifty-move rule
+   */
+  public record Entry(long hash, LegalMoveList moves, ChessGame.GameStatus status) {
+  }
+
+  private final AtomicReferenceArray<Entry> entries;
+  private final int indexMask;
+  private final LongAdder hits=new LongAdder();
+  private final LongAdder misses=new LongAdder();
+
+  /**
+   * @param capacity positions the cache may hold; rounded down to a power of two
+   */
+  public MoveCache(int capacity) {
+    if (capacity < 1) throw new IllegalArgumentException("Move cache needs room for at least one position");
+    var size=Integer.highestOneBit(capacity);
+    entries=new AtomicReferenceArray<>(size);
+    indexMask=size - 1;
+  }
+
+  public int capacity() {
+    return indexMask + 1;
+  }
+
+  /**
+   * @return the game's current position, from the cache or worked out and
+   * stored
+   */
+  public Entry get(GameImple game) {
+    var hash=game.getHash();
+    var slot=(int) hash & indexMask;
+    var entry=entries.get(slot);
+    if (entry != null && entry.hash() == hash) {
+      hits.increment();
+      return entry;
+    }
+
+    misses.increment();
+    var moves=game.generateLegalMoveList();
+    var inCheck=game.isInCheck(game.getTeamTurn());
+    ChessGame.GameStatus status;
+    if (moves.isEmpty()) status=inCheck ? ChessGame.GameStatus.CHECKMATE : ChessGame.GameStatus.STALEMATE;
+    else status=inCheck ? ChessGame.GameStatus.CHECK : ChessGame.GameStatus.NORMAL;
+    entry=new Entry(hash, moves, status);
+    entries.set(slot, entry);
+    return entry;
+  }
+
+  public long hits() {
+    return hits.sum();
+  }
+
+  public long misses() {
+    return misses.sum();
+  }
+
+  public void clear() {
+    for (int slot=0; slot <= indexMask; ++slot) entries.set(slot, null);
+  }
+}
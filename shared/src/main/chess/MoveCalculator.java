@@ -2,257 +2,210 @@ package chess;
 
 import java.util.Collection;
 import java.util.HashSet;
-import java.util.Set;
-
-enum TakeStatus {CANT_TAKE, CAN_TAKE, MUST_TAKE}
 
 public class MoveCalculator {
   private static final ChessPiece.PieceType[] promotions=new ChessPiece.PieceType[]{ChessPiece.PieceType.QUEEN, ChessPiece.PieceType.BISHOP, ChessPiece.PieceType.KNIGHT, ChessPiece.PieceType.ROOK};
 
+  static final int[][] rookDirections={{1, 0}, {-1, 0}, {0, 1}, {0, -1}};
+  static final int[][] bishopDirections={{1, 1}, {-1, 1}, {1, -1}, {-1, -1}};
+  static final int[][] knightJumps={{1, -2}, {2, 1}, {1, 2}, {2, -1}, {-1, -2}, {-2, 1}, {-1, 2}, {-2, -1}};
+  static final int[][] kingSteps={{1, -1}, {1, 0}, {1, 1}, {0, -1}, {0, 1}, {-1, -1}, {-1, 0}, {-1, 1}};
+
   private MoveCalculator() {
   }
 
   public static Collection<ChessMove> getMoves(ChessBoard board, ChessPosition pos, ChessPiece piece) {
-    var type=piece.getPieceType();
-    MoveFunction moveFunction=null;
-    switch (type) {
-      case ROOK -> moveFunction=MoveCalculator::rookMoves;
-      case KNIGHT -> moveFunction=MoveCalculator::knightMoves;
-      case BISHOP -> moveFunction=MoveCalculator::bishopMoves;
-      case KING -> moveFunction=MoveCalculator::kingMoves;
-      case QUEEN -> moveFunction=MoveCalculator::queenMoves;
-      case PAWN -> moveFunction=MoveCalculator::pawnMoves;
-    }
-
-    if (moveFunction == null) return new HashSet<ChessMove>();
+    var buffer=new MoveList(32);
+    getMoves(board, pos.getRow() * 8 + pos.getColumn(), piece, buffer);
 
-    var moveManager=new MoveManager(board, piece, pos);
-
-    return moveFunction.getMoves(moveManager);
+    var moves=new HashSet<ChessMove>();
+    for (int index=0; index < buffer.size(); ++index) moves.add(PackedMove.toChessMove(buffer.get(index)));
+    return moves;
   }
 
-  private static Set<ChessMove> rookMoves(MoveManager moveManager) {
-    var moves=moveManager.moves;
-    var pos=moveManager.getStartPos();
-
-    interface MoveChecker {
-      boolean checkMove(int row, int col);
-    }
-
-    MoveChecker moveChecker=(int row, int col) -> {
-      var newPos=moveManager.newPosition(row, col);
-
-      if (moveManager.isValidMove(newPos)) moves.add(moveManager.newMove(newPos));
-
-      // if there is a piece, then we need to tell it to break
-      return moveManager.getPiece(newPos) != null;
-    };
+  /**
+   * Appends the pseudo-legal moves of a piece to a buffer as packed moves
+   * (see {@link PackedMove}). Does not allocate.
+   *
+   * @param board  board the piece is on
+   * @param square square of the piece, {@code row * 8 + column}
+   * @param piece  piece to move
+   * @param moves  buffer the moves are appended to
+   */
+  public static void getMoves(ChessBoard board, int square, ChessPiece piece, MoveList moves) {
+    getMoves(board, square, piece, 0, -1, moves);
+  }
 
-    for (int row=pos.getRow() + 1; row < 8; ++row) {
-      if (moveChecker.checkMove(row, pos.getColumn())) break;
-    }
-    for (int row=pos.getRow() - 1; row >= 0; --row) {
-      if (moveChecker.checkMove(row, pos.getColumn())) break;
-    }
-    for (int col=pos.getColumn() + 1; col < 8; ++col) {
-      if (moveChecker.checkMove(pos.getRow(), col)) break;
-    }
-    for (int col=pos.getColumn() - 1; col >= 0; --col) {
-      if (moveChecker.checkMove(pos.getRow(), col)) break;
+  /**
+   * Same as {@link #getMoves(ChessBoard, int, ChessPiece, MoveList)}, with
+   * castling and en passant. Castling is only generated when the king is not
+   * in check and does not pass over an attacked square; whether it lands on
+   * one is left to the caller, as for any king move.
+   *
+   * @param castlingRights  rights that hold on this board, see {@link GameImple#getCastlingRights()}
+   * @param enPassantSquare square a pawn can capture onto en passant, or -1
+   */
+  public static void getMoves(ChessBoard board, int square, ChessPiece piece, int castlingRights, int enPassantSquare, MoveList moves) {
+    var color=piece.getTeamColor();
+    switch (piece.getPieceType()) {
+      case ROOK -> addTargets(square, SliderAttacks.rook(square, board.getOccupancy()) & ~board.getOccupancy(color), moves);
+      case KNIGHT -> steppingMoves(board, square, color, knightJumps, moves);
+      case BISHOP -> addTargets(square, SliderAttacks.bishop(square, board.getOccupancy()) & ~board.getOccupancy(color), moves);
+      case KING -> {
+        steppingMoves(board, square, color, kingSteps, moves);
+        if (castlingRights != 0) castlingMoves(board, square, color, castlingRights, moves);
+      }
+      case QUEEN -> addTargets(square, SliderAttacks.queen(square, board.getOccupancy()) & ~board.getOccupancy(color), moves);
+      case PAWN -> pawnMoves(board, square, color, enPassantSquare, moves);
     }
-    return moves;
   }
 
-  private static Set<ChessMove> knightMoves(MoveManager moveManager) {
-    var moves=moveManager.moves;
-    var pos=moveManager.getStartPos();
-    var row=pos.getRow();
-    var col=pos.getColumn();
+  /**
+   * Checks whether any piece of a team attacks a square, by probing outward
+   * from the square for knights, pawns, kings and sliding pieces instead of
+   * generating the team's moves
+   *
+   * @param board    board to look at
+   * @param square   square to test, {@code row * 8 + column}
+   * @param attacker team whose attacks count
+   * @return true if a piece of the attacking team could capture on the square
+   */
+  public static boolean isSquareAttacked(ChessBoard board, int square, ChessGame.TeamColor attacker) {
+    return isSquareAttacked(board, square, attacker, -1);
+  }
 
-    var positions=new int[][]{
-            {row + 1, col - 2},
-            {row + 2, col + 1},
-            {row + 1, col + 2},
-            {row + 2, col - 1},
-            {row - 1, col - 2},
-            {row - 2, col + 1},
-            {row - 1, col + 2},
-            {row - 2, col - 1},
-    };
+  /**
+   * Same as {@link #isSquareAttacked(ChessBoard, int, ChessGame.TeamColor)}, but
+   * sliding attacks see through one square as if it were empty. Used to check
+   * where a king can go, since the king no longer blocks rays once it moves.
+   */
+  static boolean isSquareAttacked(ChessBoard board, int square, ChessGame.TeamColor attacker, int transparentSquare) {
+    var row=square >>> 3;
+    var col=square & 7;
+
+    if (attackedByStep(board, row, col, attacker, knightJumps, ChessPiece.PieceType.KNIGHT)) return true;
+    if (attackedByStep(board, row, col, attacker, kingSteps, ChessPiece.PieceType.KING)) return true;
+
+    // an attacking pawn sits one row behind the square, from its own point of view
+    var pawnRow=attacker == ChessGame.TeamColor.WHITE ? row - 1 : row + 1;
+    for (int side=-1; side < 2; side+=2) {
+      if (!onBoard(pawnRow, col + side)) continue;
+      if (isPiece(board.getPiece(PositionImple.of(pawnRow * 8 + col + side)), attacker, ChessPiece.PieceType.PAWN)) return true;
+    }
+
+    // sliders: look up the attacks from the square and see whether they hit a matching enemy piece
+    var occupancy=board.getOccupancy();
+    if (transparentSquare >= 0) occupancy&=~(1L << transparentSquare);
+    var enemies=board.getOccupancy(attacker);
+    return attackedBySlider(board, SliderAttacks.rook(square, occupancy) & enemies, ChessPiece.PieceType.ROOK) ||
+            attackedBySlider(board, SliderAttacks.bishop(square, occupancy) & enemies, ChessPiece.PieceType.BISHOP);
+  }
 
-    for (int index=0; index < 8; ++index) {
-      var row1=positions[index][0];
-      var col1=positions[index][1];
-      var newPos=moveManager.newPosition(row1, col1);
-      if (moveManager.isValidMove(newPos)) moves.add(moveManager.newMove(newPos));
+  private static boolean attackedByStep(ChessBoard board, int row, int col, ChessGame.TeamColor attacker, int[][] offsets, ChessPiece.PieceType type) {
+    for (var offset : offsets) {
+      var fromRow=row + offset[0];
+      var fromCol=col + offset[1];
+      if (onBoard(fromRow, fromCol) && isPiece(board.getPiece(PositionImple.of(fromRow * 8 + fromCol)), attacker, type)) return true;
     }
-    return moves;
+    return false;
   }
 
-  private static Set<ChessMove> bishopMoves(MoveManager moveManager) {
-    var moves=moveManager.moves;
-    var pos=moveManager.getStartPos();
-
-    interface MoveChecker {
-      boolean checkMove(int row, int column);
+  // candidates are the first enemy pieces on each ray, so one of them being the slider or a queen is an attack
+  private static boolean attackedBySlider(ChessBoard board, long candidates, ChessPiece.PieceType slider) {
+    while (candidates != 0) {
+      var type=board.getPiece(PositionImple.of(Long.numberOfTrailingZeros(candidates))).getPieceType();
+      if (type == slider || type == ChessPiece.PieceType.QUEEN) return true;
+      candidates&=candidates - 1;
     }
+    return false;
+  }
 
-    MoveChecker moveChecker=(int row, int column) -> {
-      var newPos=moveManager.newPosition(row, column);
-      if (moveManager.isValidMove(newPos)) moves.add(moveManager.newMove(newPos));
-
-      // if we hit a piece we need to break
-      return column <= 0 || column >= 7 || moveManager.getPiece(newPos) != null;
-    };
+  static boolean isPiece(ChessPiece piece, ChessGame.TeamColor color, ChessPiece.PieceType type) {
+    return piece != null && piece.getTeamColor() == color && piece.getPieceType() == type;
+  }
 
-    var col=0;
-    for (int row=pos.getRow() + 1; row < 8; ++row) {
-      if (moveChecker.checkMove(row, pos.getColumn() + ++col)) break;
-    }
-    col=0;
-    for (int row=pos.getRow() - 1; row >= 0; --row) {
-      if (moveChecker.checkMove(row, pos.getColumn() + ++col)) break;
-    }
-    col=0;
-    for (int row=pos.getRow() + 1; row < 8; ++row) {
-      if (moveChecker.checkMove(row, pos.getColumn() - ++col)) break;
-    }
-    col=0;
-    for (int row=pos.getRow() - 1; row >= 0; --row) {
-      if (moveChecker.checkMove(row, pos.getColumn() - ++col)) break;
+  private static void addTargets(int from, long targets, MoveList moves) {
+    while (targets != 0) {
+      moves.add(PackedMove.of(from, Long.numberOfTrailingZeros(targets)));
+      targets&=targets - 1;
     }
-
-    return moves;
   }
 
-  private static Set<ChessMove> kingMoves(MoveManager moveManager) {
-    var moves=moveManager.moves;
-    var pos=moveManager.getStartPos();
-    for (int row=-1; row < 2; ++row) {
-      for (int col=-1; col < 2; ++col) {
-        var newPos=moveManager.newPosition(pos.getRow() + row, pos.getColumn() + col);
-        if (moveManager.isValidMove(newPos)) moves.add(moveManager.newMove(newPos));
-      }
+  private static void steppingMoves(ChessBoard board, int from, ChessGame.TeamColor color, int[][] offsets, MoveList moves) {
+    for (var offset : offsets) {
+      var row=(from >>> 3) + offset[0];
+      var col=(from & 7) + offset[1];
+      if (!onBoard(row, col)) continue;
+      var to=row * 8 + col;
+      var target=board.getPiece(PositionImple.of(to));
+      if (target == null || target.getTeamColor() != color) moves.add(PackedMove.of(from, to));
     }
-    return moves;
   }
 
-  private static Set<ChessMove> queenMoves(MoveManager moveManager) {
-    var moves=new HashSet<ChessMove>();
-    moves.addAll(rookMoves(moveManager));
-    moves.addAll(bishopMoves(moveManager));
-    return moves;
+  // the king steps two squares toward its rook, over squares that are empty and not attacked
+  private static void castlingMoves(ChessBoard board, int from, ChessGame.TeamColor color, int castlingRights, MoveList moves) {
+    var white=color == ChessGame.TeamColor.WHITE;
+    if (from != (white ? 4 : 60)) return;
+    var kingside=white ? GameImple.whiteKingside : GameImple.blackKingside;
+    var queenside=white ? GameImple.whiteQueenside : GameImple.blackQueenside;
+    if ((castlingRights & (kingside | queenside)) == 0) return;
+
+    var enemy=white ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+    if (isSquareAttacked(board, from, enemy)) return;
+    var occupancy=board.getOccupancy();
+    // squares between the king and the rook
+    var kingsideGap=0b11L << from + 1;
+    var queensideGap=0b111L << from - 3;
+    if ((castlingRights & kingside) != 0 && (occupancy & kingsideGap) == 0 && !isSquareAttacked(board, from + 1, enemy)) {
+      moves.add(PackedMove.of(from, from + 2));
+    }
+    if ((castlingRights & queenside) != 0 && (occupancy & queensideGap) == 0 && !isSquareAttacked(board, from - 1, enemy)) {
+      moves.add(PackedMove.of(from, from - 2));
+    }
   }
 
-  // white advances down, black advances up
-  private static Set<ChessMove> pawnMoves(MoveManager moveManager) {
-    int toMove;
-    int notMovedRow;
-    var pos=moveManager.getStartPos();
-    var piece=moveManager.getPiece(pos);
-    var moves=moveManager.moves;
+  // white advances up, black advances down
+  private static void pawnMoves(ChessBoard board, int from, ChessGame.TeamColor color, int enPassantSquare, MoveList moves) {
+    var white=color == ChessGame.TeamColor.WHITE;
+    var toMove=white ? 1 : -1;
+    var notMovedRow=white ? 1 : 6;
+    var row=from >>> 3;
+    var col=from & 7;
+    var forwardRow=row + toMove;
 
-    if (piece.getTeamColor() == ChessGame.TeamColor.WHITE) {
-      toMove=1;
-      notMovedRow=1;
-    } else {
-      toMove=-1;
-      notMovedRow=6;
-    }
-
-    var forward=moveManager.newPosition(pos.getRow() + toMove, pos.getColumn());
-    var canMoveForward=moveManager.isValidMove(forward, TakeStatus.CANT_TAKE);
+    if (forwardRow < 0 || forwardRow > 7) return;
 
     // if can move directly forward
-    if (canMoveForward) {
-      // if directly forward would move to promotion row
-      if (forward.getRow() == 0 || forward.getRow() == 7) {
-        for (int i=0; i < 4; ++i) moves.add(moveManager.newMove(forward, promotions[i]));
-      }
-      // if move is normal move
-      else moves.add(moveManager.newMove(forward));
+    var forward=forwardRow * 8 + col;
+    if (board.getPiece(PositionImple.of(forward)) == null) {
+      addPawnMove(from, forward, moves);
 
       // if can do double move at beginning
-      if (pos.getRow() == notMovedRow) {
-        var doubleForward=moveManager.newPosition(pos.getRow() + toMove * 2, pos.getColumn());
-        if (moveManager.isValidMove(doubleForward, TakeStatus.CANT_TAKE))
-          moves.add(moveManager.newMove(doubleForward));
+      if (row == notMovedRow) {
+        var doubleForward=forward + toMove * 8;
+        if (board.getPiece(PositionImple.of(doubleForward)) == null) moves.add(PackedMove.of(from, doubleForward));
       }
     }
 
-    // for taking pieces
-    var left=moveManager.newPosition(pos.getRow() + toMove, pos.getColumn() - 1);
-    var right=moveManager.newPosition(pos.getRow() + toMove, pos.getColumn() + 1);
-    if (moveManager.isValidMove(left, TakeStatus.MUST_TAKE)) {
-      if (left.getRow() == 0 || left.getRow() == 7) {
-        for (int i=0; i < 4; ++i) moves.add(moveManager.newMove(left, promotions[i]));
-      } else moves.add(moveManager.newMove(left));
-    }
-    if (moveManager.isValidMove(right, TakeStatus.MUST_TAKE)) {
-      if (right.getRow() == 0 || right.getRow() == 7) {
-        for (int i=0; i < 4; ++i) moves.add(moveManager.newMove(right, promotions[i]));
-      } else moves.add(moveManager.newMove(right));
+    // for taking pieces, and en passant onto the square an enemy pawn just skipped
+    var enPassantRow=white ? 5 : 2;
+    for (int side=-1; side < 2; side+=2) {
+      if (col + side < 0 || col + side > 7) continue;
+      var to=forward + side;
+      var target=board.getPiece(PositionImple.of(to));
+      if (target != null && target.getTeamColor() != color) addPawnMove(from, to, moves);
+      else if (to == enPassantSquare && forwardRow == enPassantRow) moves.add(PackedMove.of(from, to));
     }
-
-    return moves;
-  }
-
-  interface MoveFactory {
-    ChessMove newMove(ChessPosition pos);
   }
 
-  interface MoveValidator {
-    boolean isValidMove(ChessPosition pos);
-
-    boolean isValidMove(ChessPosition pos, TakeStatus status);
-  }
-
-  interface MoveFunction {
-    Set<ChessMove> getMoves(MoveManager moveManager);
+  private static void addPawnMove(int from, int to, MoveList moves) {
+    // if the move lands on the promotion row it has to promote
+    if (to < 8 || to >= 56) {
+      for (var promotion : promotions) moves.add(PackedMove.of(from, to, promotion));
+    } else moves.add(PackedMove.of(from, to));
   }
 
-  private static class MoveManager {
-    public final Set<ChessMove> moves=new HashSet<>();
-    private final ChessBoard board;
-    private final ChessPiece piece;
-    private final ChessPosition startPos;
-
-    MoveManager(ChessBoard board, ChessPiece piece, ChessPosition startPos) {
-      this.board=board;
-      this.piece=piece;
-      this.startPos=startPos;
-    }
-
-    public ChessMove newMove(ChessPosition pos) {
-      return new MoveImple(startPos, pos);
-    }
-
-    public ChessMove newMove(ChessPosition pos, ChessPiece.PieceType promotionType) {
-      return new MoveImple(startPos, pos, promotionType);
-    }
-
-    public boolean isValidMove(ChessPosition newPos, TakeStatus status) {
-      if (newPos.getColumn() > 7 || newPos.getColumn() < 0 || newPos.getRow() > 7 || newPos.getRow() < 0) return false;
-      var toMove=board.getPiece(newPos);
-      if (status == TakeStatus.MUST_TAKE && toMove == null) return false;
-      if (status == TakeStatus.CANT_TAKE && toMove != null) return false;
-      return toMove == null || toMove.getTeamColor() != piece.getTeamColor();
-    }
-
-    public boolean isValidMove(ChessPosition newPos) {
-      return isValidMove(newPos, TakeStatus.CAN_TAKE);
-    }
-
-    public ChessPiece getPiece(ChessPosition pos) {
-      return board.getPiece(pos);
-    }
-
-    public ChessPosition newPosition(int row, int col) {
-      return new PositionImple(row, col);
-    }
-
-    public ChessPosition getStartPos() {
-      return startPos;
-    }
+  static boolean onBoard(int row, int col) {
+    return row >= 0 && row < 8 && col >= 0 && col < 8;
   }
 }
@@ -43,9 +43,8 @@ public class MoveImple implements ChessMove {
 
   @Override
   public int hashCode() {
-    var startHash=startPos.hashCode();
-    var endHash=endPos.hashCode();
-    return startHash * endHash + startHash + endHash;
+    // positions hash to their square, so this is unique for on-board moves
+    return startPos.hashCode() * 64 + endPos.hashCode();
   }
 
   @Override
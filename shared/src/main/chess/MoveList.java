@@ -0,0 +1,55 @@
+package chess;
+
+import java.util.Arrays;
+
+/**
+ * A reusable, growable buffer of packed moves (see {@link PackedMove}).
+ * Clearing it keeps the backing array, so a buffer that is reused across calls
+ * stops allocating once it has grown to the largest move count it has seen.
+ */
+public class MoveList {
+  private int[] moves;
+  private int size;
+
+  public MoveList() {
+    this(256);
+  }
+
+  public MoveList(int capacity) {
+    moves=new int[capacity];
+  }
+
+  public void add(int move) {
+    if (size == moves.length) moves=Arrays.copyOf(moves, size * 2);
+    moves[size++]=move;
+  }
+
+  public int get(int index) {
+    return moves[index];
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  public void swap(int first, int second) {
+    var move=moves[first];
+    moves[first]=moves[second];
+    moves[second]=move;
+  }
+
+  public void clear() {
+    size=0;
+  }
+
+  public boolean contains(int move) {
+    for (int index=0; index < size; ++index) {
+      if (moves[index] == move) return true;
+    }
+    return false;
+  }
+}
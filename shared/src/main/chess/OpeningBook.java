@@ -0,0 +1,132 @@
+package chess;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.random.RandomGenerator;
+
+/**
+ * Reads an opening book straight from a memory-mapped file. The file is an
+ * 8-byte header (the magic number and the entry count) followed by entries of
+ * {@link #entryBytes} bytes, sorted by position hash and then by move:
+ * <ul>
+ *   <li>the position's {@link GameImple#getHash()} (8 bytes)</li>
+ *   <li>the move, packed (see {@link PackedMove}) (2 bytes)</li>
+ *   <li>its weight, unsigned (2 bytes)</li>
+ * </ul>
+ * Lookups binary search the mapped bytes with absolute reads, so nothing is
+ * copied onto the heap and one instance can be shared by every game and
+ * thread. Files are written by {@link OpeningBookBuilder}.
+ */
+public final class OpeningBook {
+  static final int magic=0x43424F4B;
+  static final int headerBytes=8;
+  static final int entryBytes=12;
+
+  private final ByteBuffer entries;
+  private final int entryCount;
+
+  private OpeningBook(ByteBuffer entries, int entryCount) {
+    this.entries=entries;
+    this.entryCount=entryCount;
+  }
+
+  /**
+   * Maps a book file. The mapping outlives the file channel, which is closed
+   * before returning.
+   *
+   * @throws IOException if the file cannot be read or is not a book
+   */
+  public static OpeningBook open(Path path) throws IOException {
+    try (var channel=FileChannel.open(path, StandardOpenOption.READ)) {
+      var size=channel.size();
+      if (size > Integer.MAX_VALUE) throw new IOException("Opening book is too large to map: " + path);
+      var buffer=channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+      if (size < headerBytes || buffer.getInt(0) != magic) throw new IOException("Not an opening book: " + path);
+      var count=buffer.getInt(4);
+      if (count < 0 || headerBytes + (long) count * entryBytes != size) throw new IOException("Truncated opening book: " + path);
+      return new OpeningBook(buffer, count);
+    }
+  }
+
+  public int entryCount() {
+    return entryCount;
+  }
+
+  /**
+   * @return the book's moves for the position, legal ones only, in the
+   * order stored
+   */
+  public List<BookMove> moves(GameImple game) {
+    var moves=new ArrayList<BookMove>();
+    var hash=game.getHash();
+    var first=firstIndex(hash);
+    if (first == entryCount || hash(first) != hash) return moves;
+
+    // a different position with the same hash would otherwise hand out moves that cannot be played
+    var legal=game.allLegalMoves();
+    for (int index=first; index < entryCount && hash(index) == hash; ++index) {
+      var move=move(index);
+      if (legal.contains(move)) moves.add(new BookMove(move, weight(index)));
+    }
+    return moves;
+  }
+
+  /**
+   * Picks one of the position's book moves at random, in proportion to the
+   * weights
+   *
+   * @return the packed move, or -1 if the position is not in the book
+   */
+  public int pick(GameImple game, RandomGenerator random) {
+    var moves=moves(game);
+    long total=0;
+    for (var move : moves) total+=move.weight();
+    if (total == 0) return -1;
+
+    var target=random.nextLong(total);
+    for (var move : moves) {
+      target-=move.weight();
+      if (target < 0) return move.move();
+    }
+    return -1;
+  }
+
+  // lowest index whose hash is not below the key, comparing hashes as unsigned like the builder sorts them
+  private int firstIndex(long hash) {
+    var low=0;
+    var high=entryCount;
+    while (low < high) {
+      var middle=(low + high) >>> 1;
+      if (Long.compareUnsigned(hash(middle), hash) < 0) low=middle + 1;
+      else high=middle;
+    }
+    return low;
+  }
+
+  private long hash(int index) {
+    return entries.getLong(headerBytes + index * entryBytes);
+  }
+
+  private int move(int index) {
+    return entries.getShort(headerBytes + index * entryBytes + 8) & 0xFFFF;
+  }
+
+  private int weight(int index) {
+    return entries.getShort(headerBytes + index * entryBytes + 10) & 0xFFFF;
+  }
+
+  /**
+   * @param move   packed move (see {@link PackedMove})
+   * @param weight how strongly the book recommends it, relative to the position's other moves
+   */
+  public record BookMove(int move, int weight) {
+    public ChessMove toChessMove() {
+      return PackedMove.toChessMove(move);
+    }
+  }
+}
@@ -0,0 +1,126 @@
+package chess;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/**
+ * Builds an {@link OpeningBook} file from PGN games. The first plies of every
+ * game are replayed, and each (position, move) pair is weighted by how the
+ * game went for the side that played it: 2 for a win, 1 for a draw or an
+ * unknown result, nothing for a loss. Moves that only ever lost are left out.
+ */
+public class OpeningBookBuilder {
+  private final int maxPlies;
+  private final HashMap<BookKey, Integer> weights=new HashMap<>();
+  private final MoveList moves=new MoveList();
+
+  /**
+   * @param maxPlies plies of each game that go into the book
+   */
+  public OpeningBookBuilder(int maxPlies) {
+    this.maxPlies=maxPlies;
+  }
+
+  public static void main(String[] args) throws IOException {
+    if (args.length < 2) {
+      System.out.println("Usage: OpeningBookBuilder <games.pgn> <book.bin> [maxPlies]");
+      return;
+    }
+    var builder=new OpeningBookBuilder(args.length > 2 ? Integer.parseInt(args[2]) : 20);
+    var start=System.nanoTime();
+    long games;
+    try (var reader=PgnReader.open(Path.of(args[0]))) {
+      games=builder.addAll(reader);
+    }
+    var entries=builder.write(Path.of(args[1]));
+    System.out.printf("%,d games, %,d book entries in %.3fs%n", games, entries, (System.nanoTime() - start) / 1e9);
+  }
+
+  /**
+   * Adds every game the reader has left
+   *
+   * @return games read
+   */
+  public long addAll(PgnReader reader) throws IOException {
+    long games=0;
+    for (var game=reader.next(); game != null; game=reader.next()) {
+      add(game);
+      ++games;
+    }
+    return games;
+  }
+
+  /**
+   * Adds a game's opening, up to its first move that is not legal. Games
+   * with a bad FEN tag are skipped.
+   */
+  public void add(PgnGame pgn) {
+    GameImple game;
+    var fen=pgn.tag("FEN");
+    if (fen != null) {
+      try {
+        game=Fen.parse(fen).game();
+      } catch (IllegalArgumentException e) {
+        return;
+      }
+    } else {
+      game=new GameImple();
+      game.getBoard().resetBoard();
+    }
+
+    var plies=Math.min(maxPlies, pgn.moveCount());
+    for (int ply=0; ply < plies; ++ply) {
+      var move=San.resolve(game, pgn.move(ply), moves);
+      if (move < 0) return;
+      var points=points(pgn.result(), game.getTeamTurn());
+      if (points > 0) weights.merge(new BookKey(game.getHash(), move), points, Integer::sum);
+      game.makeMove(move);
+    }
+  }
+
+  private static int points(String result, ChessGame.TeamColor mover) {
+    var white=mover == ChessGame.TeamColor.WHITE;
+    return switch (result) {
+      case "1-0" -> white ? 2 : 0;
+      case "0-1" -> white ? 0 : 2;
+      default -> 1;
+    };
+  }
+
+  /**
+   * Writes the book, sorted the way {@link OpeningBook} searches it. Weights
+   * above what an entry can hold are capped.
+   *
+   * @return entries written
+   */
+  public int write(Path path) throws IOException {
+    var keys=new ArrayList<>(weights.keySet());
+    // unsigned, so the order does not flip at the sign bit
+    keys.sort((first, second) -> {
+      var byHash=Long.compareUnsigned(first.hash(), second.hash());
+      return byHash != 0 ? byHash : Integer.compare(first.move(), second.move());
+    });
+
+    var buffer=ByteBuffer.allocate(OpeningBook.headerBytes + keys.size() * OpeningBook.entryBytes);
+    buffer.putInt(OpeningBook.magic).putInt(keys.size());
+    for (var key : keys) {
+      buffer.putLong(key.hash());
+      buffer.putShort((short) key.move());
+      buffer.putShort((short) Math.min(weights.get(key), 0xFFFF));
+    }
+    buffer.flip();
+
+    try (var channel=FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+      while (buffer.hasRemaining()) channel.write(buffer);
+    }
+    return keys.size();
+  }
+
+  private record BookKey(long hash, int move) {
+  }
+}
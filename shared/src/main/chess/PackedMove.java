@@ -0,0 +1,50 @@
+package chess;
+
+/**
+ * Helpers for moves packed into a single int, so move generation can fill
+ * primitive buffers instead of allocating {@link ChessMove} objects.
+ * <p>
+ * Bits 0-5 hold the start square, bits 6-11 the end square (both
+ * {@code row * 8 + column}) and bits 12-14 the promotion piece as
+ * {@code PieceType.ordinal() + 1}, or 0 for no promotion.
+ */
+public final class PackedMove {
+  private static final ChessPiece.PieceType[] types=ChessPiece.PieceType.values();
+
+  private PackedMove() {
+  }
+
+  public static int of(int from, int to) {
+    return from | to << 6;
+  }
+
+  public static int of(int from, int to, ChessPiece.PieceType promotion) {
+    return promotion == null ? of(from, to) : from | to << 6 | (promotion.ordinal() + 1) << 12;
+  }
+
+  public static int of(ChessMove move) {
+    var start=move.getStartPosition();
+    var end=move.getEndPosition();
+    return of(start.getRow() * 8 + start.getColumn(), end.getRow() * 8 + end.getColumn(), move.getPromotionPiece());
+  }
+
+  public static int from(int move) {
+    return move & 0x3F;
+  }
+
+  public static int to(int move) {
+    return move >>> 6 & 0x3F;
+  }
+
+  /**
+   * @return the promotion piece, or null if the move is not a promotion
+   */
+  public static ChessPiece.PieceType promotion(int move) {
+    var code=move >>> 12 & 0x7;
+    return code == 0 ? null : types[code - 1];
+  }
+
+  public static ChessMove toChessMove(int move) {
+    return new MoveImple(PositionImple.of(from(move)), PositionImple.of(to(move)), promotion(move));
+  }
+}
@@ -0,0 +1,124 @@
+package chess;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * {@link Perft} split across a {@link ForkJoinPool}: one task per root move,
+ * and tasks keep splitting by move until only a few plies are left, which
+ * each task then counts on its own copy of the game.
+ */
+public class ParallelPerft {
+  // tasks with this many plies or fewer left count sequentially instead of splitting
+  private static final int splitDepth=3;
+
+  private final ForkJoinPool pool;
+
+  public ParallelPerft(ForkJoinPool pool) {
+    this.pool=pool;
+  }
+
+  public static void main(String[] args) {
+    var depth=args.length > 0 ? Integer.parseInt(args[0]) : 5;
+    var threads=args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+
+    var pool=new ForkJoinPool(threads);
+    var perft=new ParallelPerft(pool);
+    for (var position : Perft.positions) {
+      var game=GameImple.deserialize(position.board(), position.turn());
+      var start=System.nanoTime();
+      var divide=perft.divide(game, depth);
+      var seconds=(System.nanoTime() - start) / 1e9;
+
+      long nodes=0;
+      System.out.printf("%s, depth %d, %d threads%n", position.name(), depth, threads);
+      for (var root : divide) {
+        System.out.printf("  %s: %,d%n", root.move(), root.nodes());
+        nodes+=root.nodes();
+      }
+      var expected=depth <= position.counts().length ? String.valueOf(position.counts()[depth - 1]) : "?";
+      System.out.printf("  total %,d nodes (expected %s) in %.3fs, %,.0f nodes/s%n", nodes, expected, seconds, nodes / seconds);
+    }
+    pool.shutdown();
+  }
+
+  /**
+   * @return number of legal move sequences of exactly {@code depth} plies
+   * @throws IllegalArgumentException if the depth is less than 1
+   */
+  public long count(ChessGame game, int depth) {
+    long nodes=0;
+    for (var root : divide(game, depth)) nodes+=root.nodes();
+    return nodes;
+  }
+
+  /**
+   * Counts the nodes below each legal root move separately ("divide"), which
+   * narrows a wrong total down to the move whose subtree is wrong
+   *
+   * @param game  position to count from, which is left as it is
+   * @param depth number of plies, at least 1
+   * @return one entry per legal root move, in generation order
+   * @throws IllegalArgumentException if the depth is less than 1
+   */
+  public List<RootCount> divide(ChessGame game, int depth) {
+    if (depth < 1) throw new IllegalArgumentException("Perft depth must be at least 1: " + depth);
+    var root=GameImple.copyOf(game);
+    var moves=new MoveList();
+    root.legalMoves(root.getTeamTurn(), moves);
+
+    var tasks=new ArrayList<PerftTask>();
+    for (int index=0; index < moves.size(); ++index) tasks.add(new PerftTask(afterMove(root, moves.get(index)), depth - 1));
+    for (var task : tasks) pool.execute(task);
+
+    var counts=new ArrayList<RootCount>();
+    for (int index=0; index < moves.size(); ++index) {
+      counts.add(new RootCount(PackedMove.toChessMove(moves.get(index)), tasks.get(index).join()));
+    }
+    return counts;
+  }
+
+  // copy of the position after a move, so each task plays on its own board
+  private static GameImple afterMove(GameImple game, int move) {
+    game.makeMove(move);
+    var copy=GameImple.copyOf(game);
+    game.unmakeMove();
+    return copy;
+  }
+
+  private static class PerftTask extends RecursiveTask<Long> {
+    private static final long serialVersionUID=1L;
+
+    private final GameImple game;
+    private final int depth;
+
+    PerftTask(GameImple game, int depth) {
+      this.game=game;
+      this.depth=depth;
+    }
+
+    @Override
+    protected Long compute() {
+      if (depth == 0) return 1L;
+      if (depth <= splitDepth) return new Perft(game, depth).count(depth);
+
+      var moves=new MoveList();
+      game.legalMoves(game.getTeamTurn(), moves);
+      var children=new ArrayList<PerftTask>();
+      for (int index=0; index < moves.size(); ++index) {
+        var child=new PerftTask(afterMove(game, moves.get(index)), depth - 1);
+        child.fork();
+        children.add(child);
+      }
+
+      long nodes=0;
+      for (var child : children) nodes+=child.join();
+      return nodes;
+    }
+  }
+
+  public record RootCount(ChessMove move, long nodes) {
+  }
+}
@@ -0,0 +1,121 @@
+package chess;
+
+import java.util.ArrayList;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Lazy SMP search: every thread runs its own {@link SearchEngine} on the same
+ * root position, and they share one {@link TranspositionTable}, so the helper
+ * threads mostly fill the table with results the main thread then reuses.
+ * Half of the helpers start one depth ahead so the threads do not all search
+ * the same tree in step.
+ * <p>
+ * Searches run one at a time on their own threads, never on the caller's.
+ * Waiting searches sit in a bounded queue, and submitting to a full queue is
+ * rejected, so a burst of analysis requests cannot pile up work or tie up the
+ * threads that submit them.
+ */
+public class ParallelSearch implements AutoCloseable {
+  private final int threads;
+  private final ThreadPoolExecutor mainExecutor;
+  private final ExecutorService helperExecutor;
+  private final TranspositionTable table;
+  // search buffers are reused per thread; the table is shared by all of them
+  private final ThreadLocal<SearchEngine> engines;
+
+  /**
+   * @param threads        threads each search uses, the main one included
+   * @param tableMegabytes size of the shared transposition table
+   * @param queueCapacity  searches that may wait while another one runs
+   */
+  public ParallelSearch(int threads, int tableMegabytes, int queueCapacity) {
+    this(threads, tableMegabytes, queueCapacity, null);
+  }
+
+  /**
+   * Same as {@link #ParallelSearch(int, int, int)}, with endgame tables every
+   * thread probes
+   *
+   * @param tablebases endgames to score exactly, or null
+   */
+  public ParallelSearch(int threads, int tableMegabytes, int queueCapacity, Tablebases tablebases) {
+    if (threads < 1) throw new IllegalArgumentException("Search needs at least one thread");
+    this.threads=threads;
+    table=new TranspositionTable(tableMegabytes);
+    engines=ThreadLocal.withInitial(() -> new SearchEngine(table, tablebases));
+    mainExecutor=new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(queueCapacity), daemonThreads("search-main"));
+    helperExecutor=threads > 1 ? Executors.newFixedThreadPool(threads - 1, daemonThreads("search-helper")) : null;
+  }
+
+  /**
+   * Queues a search of the game as it is now; later changes to the game do not
+   * affect it
+   *
+   * @return the result, completed on a search thread
+   * @throws RejectedExecutionException if the queue of waiting searches is full
+   */
+  public CompletableFuture<SearchResult> submit(ChessGame game, SearchLimits limits) {
+    var position=GameImple.copyOf(game);
+    return CompletableFuture.supplyAsync(() -> run(position, limits), mainExecutor);
+  }
+
+  /**
+   * Searches the game and waits for the result
+   */
+  public SearchResult search(ChessGame game, SearchLimits limits) {
+    return submit(game, limits).join();
+  }
+
+  public int threads() {
+    return threads;
+  }
+
+  private SearchResult run(GameImple game, SearchLimits limits) {
+    var start=System.nanoTime();
+    var stop=new AtomicBoolean();
+    // one age for the whole search, set before any thread writes to the table
+    table.newSearch();
+    // the node budget is the main thread's; helpers run until it is done
+    var helperLimits=new SearchLimits(limits.maxDepth(), 0, limits.timeMillis());
+    var helpers=new ArrayList<Future<SearchResult>>();
+    for (int helper=1; helper < threads; ++helper) {
+      var firstDepth=1 + helper % 2;
+      helpers.add(helperExecutor.submit(() -> engines.get().search(game, helperLimits, firstDepth, stop)));
+    }
+
+    var best=engines.get().search(game, limits, 1, stop);
+    stop.set(true);
+
+    var nodes=best.nodes();
+    for (var helper : helpers) {
+      try {
+        var result=helper.get();
+        nodes+=result.nodes();
+        if (result.depth() > best.depth() && result.bestMove() != null) best=result;
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      } catch (ExecutionException e) {
+        throw new IllegalStateException("Helper search failed", e.getCause());
+      }
+    }
+    return new SearchResult(best.bestMove(), best.score(), best.depth(), nodes, System.nanoTime() - start);
+  }
+
+  @Override
+  public void close() {
+    mainExecutor.shutdownNow();
+    if (helperExecutor != null) helperExecutor.shutdownNow();
+  }
+
+  private static ThreadFactory daemonThreads(String name) {
+    var count=new AtomicInteger();
+    return runnable -> {
+      var thread=new Thread(runnable, name + "-" + count.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    };
+  }
+}
@@ -0,0 +1,88 @@
+package chess;
+
+/**
+ * Counts the leaf nodes of the legal move tree to a fixed depth ("perft"),
+ * using {@link GameImple#legalMoves} and make/unmake.
+ * The counts are well known for standard test positions, so they check the
+ * move generator, and the time taken is a throughput number for it.
+ */
+public class Perft {
+  /**
+   * Standard test positions, in the {@link BoardImple#serialize()} layout,
+   * with their known node counts by depth (index 0 is depth 1)
+   */
+  public static final PerftPosition[] positions={
+          new PerftPosition("start",
+                  "RNBQKBNRPPPPPPPP................................pppppppprnbqkbnr",
+                  ChessGame.TeamColor.WHITE, 20, 400, 8902, 197281),
+          new PerftPosition("rook endgame",
+                  "............P.P..........R...p.kKP.....r...p......p.............",
+                  ChessGame.TeamColor.WHITE, 14, 191, 2812, 43238, 674624),
+          // every right to castle, and en passant two plies in
+          new PerftPosition("kiwipete",
+                  "R...K..RPPPBBPPP..N..Q.p.p..P......PN...bn..pnp.p.ppqpb.r...k..r",
+                  ChessGame.TeamColor.WHITE, 48, 2039, 97862, 4085603),
+          new PerftPosition("promotions",
+                  ".....N.N....Kppp................................PPPk....n.n.....",
+                  ChessGame.TeamColor.BLACK, 24, 496, 9483, 182838, 3605103),
+  };
+
+  private final GameImple game;
+  // one buffer per ply so the search does not allocate
+  private final MoveList[] buffers;
+
+  public Perft(GameImple game, int maxDepth) {
+    this.game=game;
+    buffers=new MoveList[maxDepth + 1];
+    for (int ply=0; ply <= maxDepth; ++ply) buffers[ply]=new MoveList();
+  }
+
+  public static void main(String[] args) {
+    var maxDepth=args.length > 0 ? Integer.parseInt(args[0]) : 4;
+
+    for (var position : positions) {
+      var game=GameImple.deserialize(position.board(), position.turn());
+      var perft=new Perft(game, maxDepth);
+      for (int depth=1; depth <= maxDepth; ++depth) {
+        var start=System.nanoTime();
+        var nodes=perft.count(depth);
+        var seconds=(System.nanoTime() - start) / 1e9;
+        var expected=depth <= position.counts().length ? String.valueOf(position.counts()[depth - 1]) : "?";
+        System.out.printf("%-12s depth %d: %,d nodes (expected %s) in %.3fs, %,.0f nodes/s%n",
+                position.name(), depth, nodes, expected, seconds, nodes / seconds);
+      }
+    }
+  }
+
+  /**
+   * @param depth number of plies to search, from 1 to the depth given when created
+   * @return number of legal move sequences of exactly that length
+   * @throws IllegalArgumentException if the depth is out of that range
+   */
+  public long count(int depth) {
+    if (depth < 1 || depth >= buffers.length) throw new IllegalArgumentException("Perft depth must be 1 to " + (buffers.length - 1) + ": " + depth);
+    return count(depth, 0);
+  }
+
+  private long count(int depth, int ply) {
+    if (depth == 0) return 1;
+
+    var moves=buffers[ply];
+    moves.clear();
+    game.legalMoves(game.getTeamTurn(), moves);
+
+    // every generated move is legal, so the last ply only needs counting
+    if (depth == 1) return moves.size();
+
+    long nodes=0;
+    for (int index=0; index < moves.size(); ++index) {
+      game.makeMove(moves.get(index));
+      nodes+=count(depth - 1, ply + 1);
+      game.unmakeMove();
+    }
+    return nodes;
+  }
+
+  public record PerftPosition(String name, String board, ChessGame.TeamColor turn, long... counts) {
+  }
+}
@@ -0,0 +1,82 @@
+package chess;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * One game read by {@link PgnReader}: its tag pairs, its moves as SAN text and
+ * its result. The moves are kept as bytes in a single array, and
+ * {@link #move(int)} gives a view of one of them rather than a copy.
+ */
+public class PgnGame {
+  final Map<String, String> tags=new LinkedHashMap<>();
+  private byte[] moveText=new byte[512];
+  // end offset in moveText of each move
+  private int[] moveEnds=new int[128];
+  private int moveCount;
+  String result="*";
+
+  public String tag(String name) {
+    return tags.get(name);
+  }
+
+  public Map<String, String> tags() {
+    return tags;
+  }
+
+  /**
+   * @return "1-0", "0-1", "1/2-1/2", or "*" for unknown or unfinished
+   */
+  public String result() {
+    return result;
+  }
+
+  public int moveCount() {
+    return moveCount;
+  }
+
+  /**
+   * @return the SAN text of a move, backed by this game's buffer
+   */
+  public CharSequence move(int index) {
+    var start=index == 0 ? 0 : moveEnds[index - 1];
+    return new Ascii(moveText, start, moveEnds[index]);
+  }
+
+  void addMove(byte[] text, int start, int length) {
+    var end=moveCount == 0 ? 0 : moveEnds[moveCount - 1];
+    if (end + length > moveText.length) moveText=Arrays.copyOf(moveText, Math.max(moveText.length * 2, end + length));
+    System.arraycopy(text, start, moveText, end, length);
+    if (moveCount == moveEnds.length) moveEnds=Arrays.copyOf(moveEnds, moveCount * 2);
+    moveEnds[moveCount++]=end + length;
+  }
+
+  boolean isEmpty() {
+    return moveCount == 0 && tags.isEmpty();
+  }
+
+  // ASCII text in a byte array, read in place
+  private record Ascii(byte[] bytes, int start, int end) implements CharSequence {
+    @Override
+    public int length() {
+      return end - start;
+    }
+
+    @Override
+    public char charAt(int index) {
+      return (char) (bytes[start + index] & 0xFF);
+    }
+
+    @Override
+    public CharSequence subSequence(int from, int to) {
+      return new Ascii(bytes, start + from, start + to);
+    }
+
+    @Override
+    public String toString() {
+      return new String(bytes, start, end - start, StandardCharsets.US_ASCII);
+    }
+  }
+}
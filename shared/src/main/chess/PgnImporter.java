@@ -0,0 +1,157 @@
+package chess;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.Path;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Replays PGN games on a pool of worker threads. One thread reads games with
+ * a {@link PgnReader} into a bounded queue, so memory use stays flat however
+ * large the input is. Each worker resolves the SAN moves against the legal
+ * moves, plays them, and hands the outcome to a sink.
+ */
+public class PgnImporter {
+  // games that may wait for a worker, per worker
+  private static final int queuePerWorker=64;
+  private static final PgnGame endOfInput=new PgnGame();
+
+  private final int workers;
+  private final Consumer<ReplayedGame> sink;
+
+  /**
+   * @param workers threads replaying games
+   * @param sink    receives every game, valid or not, from the worker threads,
+   *                so it has to be thread-safe
+   */
+  public PgnImporter(int workers, Consumer<ReplayedGame> sink) {
+    if (workers < 1) throw new IllegalArgumentException("Import needs at least one worker");
+    this.workers=workers;
+    this.sink=sink;
+  }
+
+  public static void main(String[] args) throws IOException {
+    if (args.length < 1) {
+      System.out.println("Usage: PgnImporter <file.pgn> [workers]");
+      return;
+    }
+    var workers=args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+    var plies=new LongAdder();
+    var importer=new PgnImporter(workers, game -> plies.add(game.plies()));
+
+    try (var reader=PgnReader.open(Path.of(args[0]))) {
+      var stats=importer.importGames(reader);
+      System.out.printf("%,d games (%,d invalid), %,d plies in %.3fs, %,.0f games/s with %d workers%n",
+              stats.games(), stats.invalid(), plies.sum(), stats.elapsedNanos() / 1e9, stats.gamesPerSecond(), workers);
+    }
+  }
+
+  /**
+   * Reads every game from the reader and replays it, returning once the sink
+   * has seen all of them
+   *
+   * @throws IOException if reading fails
+   */
+  public ImportStats importGames(PgnReader reader) throws IOException {
+    var start=System.nanoTime();
+    var queue=new ArrayBlockingQueue<PgnGame>(workers * queuePerWorker);
+    var games=new AtomicLong();
+    var invalid=new AtomicLong();
+    var failure=new AtomicReference<RuntimeException>();
+
+    ExecutorService pool=Executors.newFixedThreadPool(workers);
+    for (int worker=0; worker < workers; ++worker) {
+      pool.execute(() -> work(queue, games, invalid, failure));
+    }
+
+    try {
+      PgnGame game;
+      while (failure.get() == null && (game=reader.next()) != null) queue.put(game);
+      for (int worker=0; worker < workers; ++worker) queue.put(endOfInput);
+      pool.shutdown();
+      pool.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Import interrupted");
+    } finally {
+      pool.shutdownNow();
+    }
+
+    if (failure.get() != null) throw failure.get();
+    return new ImportStats(games.get(), invalid.get(), System.nanoTime() - start);
+  }
+
+  private void work(BlockingQueue<PgnGame> queue, AtomicLong games, AtomicLong invalid, AtomicReference<RuntimeException> failure) {
+    var moves=new MoveList();
+    try {
+      for (var game=queue.take(); game != endOfInput; game=queue.take()) {
+        // after a failure keep draining, so the reader is never stuck on a full queue
+        if (failure.get() != null) continue;
+        try {
+          var replayed=replay(game, moves);
+          games.incrementAndGet();
+          if (!replayed.isValid()) invalid.incrementAndGet();
+          sink.accept(replayed);
+        } catch (RuntimeException e) {
+          failure.compareAndSet(null, e);
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Plays a game's moves from its starting position (the FEN tag if there is
+   * one), stopping at the first move that is not legal
+   *
+   * @param moves scratch buffer for move generation
+   */
+  public static ReplayedGame replay(PgnGame pgn, MoveList moves) {
+    GameImple game;
+    var fen=pgn.tag("FEN");
+    if (fen != null) {
+      try {
+        game=Fen.parse(fen).game();
+      } catch (IllegalArgumentException e) {
+        return new ReplayedGame(pgn, null, 0, e.getMessage());
+      }
+    } else {
+      game=new GameImple();
+      game.getBoard().resetBoard();
+    }
+
+    for (int ply=0; ply < pgn.moveCount(); ++ply) {
+      var move=San.resolve(game, pgn.move(ply), moves);
+      if (move < 0) return new ReplayedGame(pgn, game, ply, "Not a legal move at ply " + (ply + 1) + ": " + pgn.move(ply));
+      game.makeMove(move);
+    }
+    return new ReplayedGame(pgn, game, pgn.moveCount(), null);
+  }
+
+  /**
+   * @param game     the game as read
+   * @param position position after the last move played, or null if the start position was bad
+   * @param plies    moves played
+   * @param error    why replaying stopped early, or null if every move was legal
+   */
+  public record ReplayedGame(PgnGame game, GameImple position, int plies, String error) {
+    public boolean isValid() {
+      return error == null;
+    }
+  }
+
+  public record ImportStats(long games, long invalid, long elapsedNanos) {
+    public double gamesPerSecond() {
+      return elapsedNanos == 0 ? 0 : games * 1e9 / elapsedNanos;
+    }
+  }
+}
@@ -0,0 +1,238 @@
+package chess;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Reads PGN one game at a time from a stream or a memory-mapped file, holding
+ * no more than the current game in memory. Comments, variations, NAGs and move
+ * numbers are skipped; only tag pairs, SAN moves and the result are kept.
+ */
+public class PgnReader implements Closeable {
+  // files are mapped a window at a time, so any size works
+  private static final int windowBytes=64 << 20;
+  private static final String[] results={"1-0", "0-1", "1/2-1/2", "*"};
+
+  private final Source source;
+  private byte[] token=new byte[64];
+  private final StringBuilder text=new StringBuilder();
+  // one byte of pushback, or -1
+  private int unread=-1;
+
+  public PgnReader(InputStream in) {
+    source=new StreamSource(in);
+  }
+
+  private PgnReader(Source source) {
+    this.source=source;
+  }
+
+  /**
+   * Opens a file for reading through memory-mapped windows
+   */
+  public static PgnReader open(Path path) throws IOException {
+    return new PgnReader(new MappedSource(FileChannel.open(path, StandardOpenOption.READ)));
+  }
+
+  /**
+   * @return the next game, or null at the end of the input
+   */
+  public PgnGame next() throws IOException {
+    var game=new PgnGame();
+    while (true) {
+      var c=read();
+      switch (c) {
+        case -1 -> {
+          return game.isEmpty() ? null : game;
+        }
+        case '[' -> {
+          // tags after moves start the next game, even without a result in between
+          if (game.moveCount() > 0) {
+            unread=c;
+            return game;
+          }
+          readTag(game);
+        }
+        case '{' -> skipPast('}');
+        case ';', '%' -> skipPast('\n');
+        case '(' -> skipVariation();
+        case ' ', '\t', '\r', '\n', ')', '}', ']' -> {
+        }
+        default -> {
+          var length=readToken(c);
+          var result=result(length);
+          if (result != null) {
+            game.result=result;
+            if (!game.isEmpty()) return game;
+          } else if (c == '$') {
+            // a NAG, like $1
+          } else addMove(game, length);
+        }
+      }
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    source.close();
+  }
+
+  private void addMove(PgnGame game, int length) {
+    // drop a move number in front, as in "12." or "12...Nf6"
+    var start=0;
+    while (start < length && token[start] >= '0' && token[start] <= '9') ++start;
+    if (start == length) return;
+    if (start > 0) {
+      if (token[start] != '.') start=0;
+      else while (start < length && token[start] == '.') ++start;
+    }
+    if (start < length) game.addMove(token, start, length - start);
+  }
+
+  private String result(int length) {
+    for (var result : results) {
+      if (result.length() != length) continue;
+      var matches=true;
+      for (int index=0; index < length && matches; ++index) matches=token[index] == result.charAt(index);
+      if (matches) return result;
+    }
+    return null;
+  }
+
+  private int readToken(int first) throws IOException {
+    var length=0;
+    var c=first;
+    while (c >= 0 && !isDelimiter(c)) {
+      if (length == token.length) token=Arrays.copyOf(token, length * 2);
+      token[length++]=(byte) c;
+      c=read();
+    }
+    if (c >= 0) unread=c;
+    return length;
+  }
+
+  private static boolean isDelimiter(int c) {
+    return c <= ' ' || c == '{' || c == '}' || c == '(' || c == ')' || c == '[' || c == ']' || c == ';';
+  }
+
+  private void readTag(PgnGame game) throws IOException {
+    text.setLength(0);
+    var c=read();
+    while (c == ' ') c=read();
+    while (c > ' ' && c != '"' && c != ']') {
+      text.append((char) c);
+      c=read();
+    }
+    var name=text.toString();
+
+    while (c >= 0 && c != '"' && c != ']') c=read();
+    text.setLength(0);
+    if (c == '"') {
+      c=read();
+      while (c >= 0 && c != '"') {
+        if (c == '\\') c=read();
+        if (c >= 0) text.append((char) c);
+        c=read();
+      }
+      while (c >= 0 && c != ']') c=read();
+    }
+    game.tags.put(name, text.toString());
+  }
+
+  private void skipPast(int end) throws IOException {
+    var c=read();
+    while (c >= 0 && c != end) c=read();
+  }
+
+  // variations nest, and may hold comments with parentheses in them
+  private void skipVariation() throws IOException {
+    var depth=1;
+    while (depth > 0) {
+      var c=read();
+      if (c < 0) return;
+      if (c == '(') ++depth;
+      else if (c == ')') --depth;
+      else if (c == '{') skipPast('}');
+      else if (c == ';') skipPast('\n');
+    }
+  }
+
+  private int read() throws IOException {
+    if (unread >= 0) {
+      var c=unread;
+      unread=-1;
+      return c;
+    }
+    return source.read();
+  }
+
+  private interface Source extends Closeable {
+    /**
+     * @return the next byte, or -1 at the end
+     */
+    int read() throws IOException;
+  }
+
+  private static class StreamSource implements Source {
+    private final InputStream in;
+    private final byte[] buffer=new byte[1 << 16];
+    private int position;
+    private int limit;
+
+    StreamSource(InputStream in) {
+      this.in=in;
+    }
+
+    @Override
+    public int read() throws IOException {
+      if (position == limit) {
+        limit=in.read(buffer);
+        position=0;
+        if (limit <= 0) {
+          limit=0;
+          return -1;
+        }
+      }
+      return buffer[position++] & 0xFF;
+    }
+
+    @Override
+    public void close() throws IOException {
+      in.close();
+    }
+  }
+
+  private static class MappedSource implements Source {
+    private final FileChannel channel;
+    private final long size;
+    private long mapped;
+    private MappedByteBuffer window;
+
+    MappedSource(FileChannel channel) throws IOException {
+      this.channel=channel;
+      size=channel.size();
+    }
+
+    @Override
+    public int read() throws IOException {
+      if (window == null || !window.hasRemaining()) {
+        if (mapped >= size) return -1;
+        var length=Math.min(windowBytes, size - mapped);
+        window=channel.map(FileChannel.MapMode.READ_ONLY, mapped, length);
+        mapped+=length;
+      }
+      return window.get() & 0xFF;
+    }
+
+    @Override
+    public void close() throws IOException {
+      channel.close();
+    }
+  }
+}
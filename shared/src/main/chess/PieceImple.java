@@ -3,30 +3,62 @@ package chess;
 import java.util.Collection;
 
 public class PieceImple implements ChessPiece {
-  ChessGame.TeamColor color;
-  PieceType type;
+  private static final PieceImple[] kinds=new PieceImple[12];
+
+  static {
+    for (var color : ChessGame.TeamColor.values()) {
+      for (var type : PieceType.values()) kinds[kindIndex(color, type)]=new PieceImple(color, type);
+    }
+  }
+
+  final ChessGame.TeamColor color;
+  final PieceType type;
 
   public PieceImple(ChessGame.TeamColor color, PieceType type) {
     this.color=color;
     this.type=type;
   }
 
+  /**
+   * Gets the shared instance for a kind of piece. Pieces are immutable, so one
+   * instance per color and type is all a board ever needs.
+   *
+   * @param color team of the piece
+   * @param type  type of the piece
+   * @return a piece equal to {@code new PieceImple(color, type)}
+   */
+  public static PieceImple of(ChessGame.TeamColor color, PieceType type) {
+    return kinds[kindIndex(color, type)];
+  }
+
+  /**
+   * @param kind {@code color.ordinal() * 6 + type.ordinal()}
+   * @return the shared instance for the kind of piece
+   */
+  static PieceImple of(int kind) {
+    return kinds[kind];
+  }
+
+  static int kindIndex(ChessGame.TeamColor color, PieceType type) {
+    return color.ordinal() * 6 + type.ordinal();
+  }
+
   public static ChessPiece deserialize(char piece) {
     ChessPiece newPiece;
 
     switch (piece) {
-      case 'r' -> newPiece=new PieceImple(ChessGame.TeamColor.BLACK, PieceType.ROOK);
-      case 'n' -> newPiece=new PieceImple(ChessGame.TeamColor.BLACK, PieceType.KNIGHT);
-      case 'b' -> newPiece=new PieceImple(ChessGame.TeamColor.BLACK, PieceType.BISHOP);
-      case 'k' -> newPiece=new PieceImple(ChessGame.TeamColor.BLACK, PieceType.KING);
-      case 'q' -> newPiece=new PieceImple(ChessGame.TeamColor.BLACK, PieceType.QUEEN);
-      case 'p' -> newPiece=new PieceImple(ChessGame.TeamColor.BLACK, PieceType.PAWN);
-      case 'R' -> newPiece=new PieceImple(ChessGame.TeamColor.WHITE, PieceType.ROOK);
-      case 'N' -> newPiece=new PieceImple(ChessGame.TeamColor.WHITE, PieceType.KNIGHT);
-      case 'B' -> newPiece=new PieceImple(ChessGame.TeamColor.WHITE, PieceType.BISHOP);
-      case 'K' -> newPiece=new PieceImple(ChessGame.TeamColor.WHITE, PieceType.KING);
-      case 'Q' -> newPiece=new PieceImple(ChessGame.TeamColor.WHITE, PieceType.QUEEN);
-      case 'P' -> newPiece=new PieceImple(ChessGame.TeamColor.WHITE, PieceType.PAWN);
+      case 'r' -> newPiece=of(ChessGame.TeamColor.BLACK, PieceType.ROOK);
+      case 'n' -> newPiece=of(ChessGame.TeamColor.BLACK, PieceType.KNIGHT);
+      case 'b' -> newPiece=of(ChessGame.TeamColor.BLACK, PieceType.BISHOP);
+      case 'k' -> newPiece=of(ChessGame.TeamColor.BLACK, PieceType.KING);
+      case 'q' -> newPiece=of(ChessGame.TeamColor.BLACK, PieceType.QUEEN);
+      case 'p' -> newPiece=of(ChessGame.TeamColor.BLACK, PieceType.PAWN);
+      case 'R' -> newPiece=of(ChessGame.TeamColor.WHITE, PieceType.ROOK);
+      case 'N' -> newPiece=of(ChessGame.TeamColor.WHITE, PieceType.KNIGHT);
+      case 'B' -> newPiece=of(ChessGame.TeamColor.WHITE, PieceType.BISHOP);
+      case 'K' -> newPiece=of(ChessGame.TeamColor.WHITE, PieceType.KING);
+      case 'Q' -> newPiece=of(ChessGame.TeamColor.WHITE, PieceType.QUEEN);
+      case 'P' -> newPiece=of(ChessGame.TeamColor.WHITE, PieceType.PAWN);
       default -> newPiece=null;
     }
 
@@ -50,12 +82,18 @@ public class PieceImple implements ChessPiece {
 
   @Override
   public boolean equals(Object obj) {
+    if (obj == this) return true;
     if (obj == null) return false;
     if (obj.getClass() != getClass()) return false;
     var otherPiece=(PieceImple) obj;
     return otherPiece.getPieceType() == type && otherPiece.getTeamColor() == color;
   }
 
+  @Override
+  public int hashCode() {
+    return kindIndex(color, type);
+  }
+
   @Override
   public String toString() {
     int offset=color == ChessGame.TeamColor.BLACK ? 0 : 32;
@@ -0,0 +1,125 @@
+package chess;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Compact binary encoding of a position, at most {@link #maxBytes} bytes
+ * against the 64 characters of {@link ChessBoard#serialize()}.
+ * <p>
+ * Layout, big-endian: the occupancy bitboard (8 bytes, bit
+ * {@code row * 8 + column}), a 16-bit state word, then one 4-bit code per
+ * occupied square in square order, two to a byte with the first in the high
+ * nibble. A piece code is its {@link PieceImple#kindIndex} plus one. Bit 0 of
+ * the state word is set when black is to move, bits 1-4 hold the castling
+ * rights, bit 5 is set when there is an en passant square and bits 6-8 hold
+ * its file; the row follows from the side to move. The other bits are
+ * reserved and written as 0.
+ */
+public final class PositionCodec {
+  public static final int maxBytes=8 + 2 + 16;
+
+  private static final int blackToMove=1;
+  private static final int castlingShift=1;
+  private static final int hasEnPassant=1 << 5;
+  private static final int enPassantFileShift=6;
+
+  private PositionCodec() {
+  }
+
+  public static byte[] encode(ChessGame game) {
+    var buffer=ByteBuffer.allocate(encodedSize(game.getBoard()));
+    encode(game, buffer);
+    return buffer.array();
+  }
+
+  /**
+   * Writes the position at the buffer's position and advances it
+   */
+  public static void encode(ChessGame game, ByteBuffer out) {
+    var board=game.getBoard();
+    var occupancy=board.getOccupancy();
+    out.putLong(occupancy);
+    out.putShort((short) state(game));
+
+    var pending=-1;
+    for (var occupied=occupancy; occupied != 0; occupied&=occupied - 1) {
+      var piece=board.getPiece(PositionImple.of(Long.numberOfTrailingZeros(occupied)));
+      var code=PieceImple.kindIndex(piece.getTeamColor(), piece.getPieceType()) + 1;
+      if (pending < 0) pending=code;
+      else {
+        out.put((byte) (pending << 4 | code));
+        pending=-1;
+      }
+    }
+    if (pending >= 0) out.put((byte) (pending << 4));
+  }
+
+  private static int state(ChessGame game) {
+    var state=game.getTeamTurn() == ChessGame.TeamColor.BLACK ? blackToMove : 0;
+    if (game instanceof GameImple gameImple) {
+      state|=gameImple.getCastlingRights() << castlingShift;
+      var enPassantSquare=gameImple.getEnPassantSquare();
+      if (enPassantSquare >= 0) state|=hasEnPassant | (enPassantSquare & 7) << enPassantFileShift;
+    }
+    return state;
+  }
+
+  public static GameImple decode(byte[] bytes) {
+    return decode(ByteBuffer.wrap(bytes));
+  }
+
+  /**
+   * Reads a position from the buffer's position and advances past it
+   *
+   * @throws IllegalArgumentException if a piece code is not valid
+   */
+  public static GameImple decode(ByteBuffer in) {
+    var game=new GameImple();
+    var occupancy=in.getLong();
+    var state=in.getShort();
+    var black=(state & blackToMove) != 0;
+    game.setTeamTurn(black ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE);
+    decodePieces(in, occupancy, game.getBoard());
+    game.setCastlingRights(state >>> castlingShift & GameImple.allCastling);
+    // the square the pawn skipped is on row 5 when white captures, row 2 when black does
+    if ((state & hasEnPassant) != 0) game.setEnPassantSquare((black ? 2 : 5) * 8 + (state >>> enPassantFileShift & 7));
+    return game;
+  }
+
+  /**
+   * Reads only the pieces of an encoded position into a board
+   *
+   * @param bytes encoded position
+   * @param board board to fill, expected to be empty
+   */
+  public static ChessBoard decodeBoard(byte[] bytes, ChessBoard board) {
+    var in=ByteBuffer.wrap(bytes);
+    var occupancy=in.getLong();
+    in.getShort();
+    decodePieces(in, occupancy, board);
+    return board;
+  }
+
+  /**
+   * @return bytes {@link #encode(ChessGame)} writes for the board
+   */
+  public static int encodedSize(ChessBoard board) {
+    return 8 + 2 + (Long.bitCount(board.getOccupancy()) + 1) / 2;
+  }
+
+  private static void decodePieces(ByteBuffer in, long occupancy, ChessBoard board) {
+    var packed=0;
+    var high=true;
+    for (var occupied=occupancy; occupied != 0; occupied&=occupied - 1) {
+      int code;
+      if (high) {
+        packed=in.get();
+        code=packed >>> 4 & 0xF;
+      } else code=packed & 0xF;
+      high=!high;
+
+      if (code < 1 || code > 12) throw new IllegalArgumentException("Bad piece code " + code);
+      board.addPiece(PositionImple.of(Long.numberOfTrailingZeros(occupied)), PieceImple.of(code - 1));
+    }
+  }
+}
@@ -3,6 +3,12 @@ package chess;
 public class PositionImple implements ChessPosition {
   private static final char[] fileNames=new char[]{'a', 'b', 'c', 'd', 'e', 'f', 'g', 'h'};
   private static final char[] rankNames=new char[]{'1', '2', '3', '4', '5', '6', '7', '8'};
+  private static final PositionImple[] squares=new PositionImple[64];
+
+  static {
+    for (int square=0; square < 64; ++square) squares[square]=new PositionImple(square >>> 3, square & 7);
+  }
+
   private final int row;
   private final int column;
 
@@ -11,6 +17,27 @@ public class PositionImple implements ChessPosition {
     this.row=row;
   }
 
+  /**
+   * Gets the shared instance for an on-board position, so probing squares does
+   * not allocate. Off-board positions get a new instance.
+   *
+   * @param row    row, 0 codes for the bottom row
+   * @param column column, 0 codes for the left column
+   * @return a position equal to {@code new PositionImple(row, column)}
+   */
+  public static PositionImple of(int row, int column) {
+    if (row < 0 || row > 7 || column < 0 || column > 7) return new PositionImple(row, column);
+    return squares[row * 8 + column];
+  }
+
+  /**
+   * @param square {@code row * 8 + column}, between 0 and 63
+   * @return the shared instance for the square
+   */
+  public static PositionImple of(int square) {
+    return squares[square];
+  }
+
   @Override
   public int getRow() {
     return row;
@@ -23,6 +50,7 @@ public class PositionImple implements ChessPosition {
 
   @Override
   public boolean equals(Object obj) {
+    if (obj == this) return true;
     if (obj == null) return false;
     if (obj.getClass() != getClass()) return false;
     var otherPos=(PositionImple) obj;
@@ -31,7 +59,8 @@ public class PositionImple implements ChessPosition {
 
   @Override
   public int hashCode() {
-    return row + column + row * column;
+    // unique for every on-board position
+    return row * 8 + column;
   }
 
   @Override
@@ -0,0 +1,111 @@
+package chess;
+
+/**
+ * Resolves Standard Algebraic Notation ("Nbd7", "exd5", "e8=Q+", "O-O")
+ * against the legal moves of a position. Check and annotation marks are
+ * ignored; castling is the king's two-square move.
+ */
+public final class San {
+  private San() {
+  }
+
+  /**
+   * @param game  position the move is played in
+   * @param san   the move text
+   * @param moves scratch buffer for the legal moves, cleared first
+   * @return the packed move (see {@link PackedMove}), or -1 if the text does not
+   * name exactly one legal move
+   */
+  public static int resolve(GameImple game, CharSequence san, MoveList moves) {
+    var end=san.length();
+    while (end > 0 && "+#!?".indexOf(san.charAt(end - 1)) >= 0) --end;
+    if (end < 2) return -1;
+
+    moves.clear();
+    game.legalMoves(game.getTeamTurn(), moves);
+    var board=game.getBoard();
+
+    var first=san.charAt(0);
+    if (first == 'O' || first == '0') return resolveCastle(board, game.getTeamTurn(), end > 3, moves);
+
+    ChessPiece.PieceType promotion=null;
+    var promotionType=pieceType(san.charAt(end - 1));
+    if (promotionType != null) {
+      promotion=promotionType;
+      --end;
+      if (end > 0 && san.charAt(end - 1) == '=') --end;
+    }
+    if (end < 2) return -1;
+
+    var toFile=san.charAt(end - 2) - 'a';
+    var toRank=san.charAt(end - 1) - '1';
+    if (toFile < 0 || toFile > 7 || toRank < 0 || toRank > 7) return -1;
+    var to=toRank * 8 + toFile;
+
+    var start=0;
+    var type=pieceType(first);
+    if (type == null) type=ChessPiece.PieceType.PAWN;
+    else ++start;
+
+    // whatever is left between the piece and the target narrows down the start square
+    var fromFile=-1;
+    var fromRank=-1;
+    var capture=false;
+    for (int index=start; index < end - 2; ++index) {
+      var c=san.charAt(index);
+      if (c >= 'a' && c <= 'h') fromFile=c - 'a';
+      else if (c >= '1' && c <= '8') fromRank=c - '1';
+      else if (c == 'x') capture=true;
+      else if (c != '-') return -1;
+    }
+    // a pawn that does not capture stays on its file
+    if (type == ChessPiece.PieceType.PAWN && !capture && fromFile < 0) fromFile=toFile;
+
+    var found=-1;
+    for (int index=0; index < moves.size(); ++index) {
+      var move=moves.get(index);
+      if (PackedMove.to(move) != to || PackedMove.promotion(move) != promotion) continue;
+      var from=PackedMove.from(move);
+      if (fromFile >= 0 && (from & 7) != fromFile) continue;
+      if (fromRank >= 0 && (from >>> 3) != fromRank) continue;
+      if (board.getPiece(PositionImple.of(from)).getPieceType() != type) continue;
+      if (found >= 0) return -1;
+      found=move;
+    }
+    return found;
+  }
+
+  /**
+   * Parses and plays a SAN move
+   *
+   * @throws InvalidMoveException if the text does not name exactly one legal move
+   */
+  public static void play(GameImple game, CharSequence san, MoveList moves) throws InvalidMoveException {
+    var move=resolve(game, san, moves);
+    if (move < 0) throw new InvalidMoveException("Not a legal move: " + san);
+    game.makeMove(move);
+  }
+
+  private static int resolveCastle(ChessBoard board, ChessGame.TeamColor color, boolean queenside, MoveList moves) {
+    var king=board.getKingPosition(color);
+    if (king == null) return -1;
+    var from=king.getRow() * 8 + king.getColumn();
+    var to=queenside ? from - 2 : from + 2;
+    for (int index=0; index < moves.size(); ++index) {
+      var move=moves.get(index);
+      if (PackedMove.from(move) == from && PackedMove.to(move) == to) return move;
+    }
+    return -1;
+  }
+
+  private static ChessPiece.PieceType pieceType(char letter) {
+    return switch (letter) {
+      case 'K' -> ChessPiece.PieceType.KING;
+      case 'Q' -> ChessPiece.PieceType.QUEEN;
+      case 'R' -> ChessPiece.PieceType.ROOK;
+      case 'B' -> ChessPiece.PieceType.BISHOP;
+      case 'N' -> ChessPiece.PieceType.KNIGHT;
+      default -> null;
+    };
+  }
+}
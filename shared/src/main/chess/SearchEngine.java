@@ -0,0 +1,315 @@
+package chess;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Alpha-beta search over {@link GameImple}: negamax with iterative deepening
+ * and a quiescence search over captures and promotions, scored by
+ * {@link Evaluation}. Moves are tried in order of the previous iteration's
+ * best move, captures by most valuable victim / least valuable attacker, then
+ * killer moves (quiet moves that caused a cutoff at the same ply). Results are
+ * kept in a {@link TranspositionTable}, which can be shared between engines,
+ * and its best move for a position is tried first. Endgames covered by
+ * {@link Tablebases}, when given, are scored from the tables.
+ * <p>
+ * The search plays on its own copy of the game, so the game passed in is not
+ * touched. Keeps its buffers between calls, so each thread needs its own
+ * instance.
+ */
+public class SearchEngine {
+  public static final int MATE=100_000;
+  public static final int MAX_PLY=128;
+
+  // centipawns by PieceType ordinal; the king is never captured, and as an attacker it is the cheapest to recapture with
+  private static final int[] pieceValues=Evaluation.pieceValues;
+  // how often the clock is read, in nodes (minus one, as a mask)
+  private static final int clockInterval=2047;
+
+  private final MoveList[] buffers=new MoveList[MAX_PLY + 1];
+  private final int[][] orderScores=new int[MAX_PLY + 1][256];
+  private final int[][] killers=new int[MAX_PLY + 1][2];
+  private final TranspositionTable table;
+  private final Tablebases tablebases;
+
+  private GameImple game;
+  private long nodes;
+  private long maxNodes;
+  private long deadline;
+  private boolean stopped;
+  private AtomicBoolean stopSignal;
+  private int rootBestMove;
+
+  /**
+   * Creates an engine with its own 16 MB transposition table
+   */
+  public SearchEngine() {
+    this(new TranspositionTable(16));
+  }
+
+  public SearchEngine(TranspositionTable table) {
+    this(table, null);
+  }
+
+  /**
+   * @param tablebases endgames to score exactly, or null
+   */
+  public SearchEngine(TranspositionTable table, Tablebases tablebases) {
+    this.table=table;
+    this.tablebases=tablebases;
+    for (int ply=0; ply <= MAX_PLY; ++ply) buffers[ply]=new MoveList();
+  }
+
+  /**
+   * Searches for the best move of the side to move, one depth at a time until
+   * a limit is reached. Only finished iterations count towards the result.
+   *
+   * @param chessGame position to search, which is left as it is
+   * @param limits    depth, node and time budget; set at least one of them
+   * @return the best move of the deepest finished iteration and its score
+   */
+  public SearchResult search(ChessGame chessGame, SearchLimits limits) {
+    table.newSearch();
+    return search(chessGame, limits, 1, new AtomicBoolean());
+  }
+
+  /**
+   * Same as {@link #search(ChessGame, SearchLimits)}, but starting at a given
+   * depth and also stopping once another thread sets the stop signal. Lets
+   * helper threads of a {@link ParallelSearch} search at different depths.
+   * Does not start a new table age, which the caller does once for all threads.
+   */
+  SearchResult search(ChessGame chessGame, SearchLimits limits, int firstDepth, AtomicBoolean stopSignal) {
+    var start=System.nanoTime();
+    this.stopSignal=stopSignal;
+    game=GameImple.copyOf(chessGame);
+    nodes=0;
+    stopped=false;
+    for (var killer : killers) killer[0]=killer[1]=0;
+    maxNodes=limits.maxNodes() > 0 ? limits.maxNodes() : Long.MAX_VALUE;
+    deadline=limits.timeMillis() > 0 ? start + limits.timeMillis() * 1_000_000 : Long.MAX_VALUE;
+    var maxDepth=limits.maxDepth() > 0 ? Math.min(limits.maxDepth(), MAX_PLY) : MAX_PLY;
+
+    var rootMoves=buffers[0];
+    rootMoves.clear();
+    game.legalMoves(game.getTeamTurn(), rootMoves);
+    if (rootMoves.isEmpty()) {
+      var score=game.isInCheck(game.getTeamTurn()) ? -MATE : 0;
+      return new SearchResult(null, score, 0, 0, System.nanoTime() - start);
+    }
+
+    var bestMove=rootMoves.get(0);
+    var bestScore=0;
+    var completedDepth=0;
+    for (int depth=Math.min(firstDepth, maxDepth); depth <= maxDepth; ++depth) {
+      var score=searchRoot(depth, bestMove);
+      if (stopped) break;
+      bestMove=rootBestMove;
+      bestScore=score;
+      completedDepth=depth;
+      // a forced mate will not change with more depth
+      if (Math.abs(score) >= MATE - MAX_PLY) break;
+    }
+    return new SearchResult(PackedMove.toChessMove(bestMove), bestScore, completedDepth, nodes, System.nanoTime() - start);
+  }
+
+  private int searchRoot(int depth, int previousBest) {
+    var moves=buffers[0];
+    scoreMoves(moves, 0, previousBest);
+    var alpha=-MATE - 1;
+    var beta=MATE + 1;
+    for (int index=0; index < moves.size(); ++index) {
+      var move=pickNext(moves, 0, index);
+      game.makeMove(move);
+      var score=-negamax(depth - 1, 1, -beta, -alpha);
+      game.unmakeMove();
+      if (stopped) return 0;
+      if (score > alpha) {
+        alpha=score;
+        rootBestMove=move;
+      }
+    }
+    table.store(game.getHash(), rootBestMove, alpha, depth, TranspositionTable.EXACT);
+    return alpha;
+  }
+
+  private int negamax(int depth, int ply, int alpha, int beta) {
+    if (depth <= 0) return quiescence(ply, alpha, beta);
+    if (outOfBudget()) return 0;
+    if (ply >= MAX_PLY) return evaluate();
+    // inside the tree a single repetition is scored as the draw it can be forced into
+    if (game.getHalfmoveClock() >= 100 || game.repetitionCount() > 1) return 0;
+    if (tablebases != null) {
+      var known=tablebases.probe(game);
+      if (known != null) return tablebaseScore(known, ply);
+    }
+
+    var key=game.getHash();
+    var entry=table.probe(key);
+    var hashMove=0;
+    if (entry != 0) {
+      hashMove=TranspositionTable.move(entry);
+      if (TranspositionTable.depth(entry) >= depth) {
+        var score=fromTable(TranspositionTable.score(entry), ply);
+        switch (TranspositionTable.bound(entry)) {
+          case TranspositionTable.EXACT -> {
+            return score;
+          }
+          case TranspositionTable.LOWER_BOUND -> {
+            if (score >= beta) return beta;
+          }
+          case TranspositionTable.UPPER_BOUND -> {
+            if (score <= alpha) return alpha;
+          }
+        }
+      }
+    }
+
+    var turn=game.getTeamTurn();
+    var moves=buffers[ply];
+    moves.clear();
+    game.legalMoves(turn, moves);
+    if (moves.isEmpty()) return game.isInCheck(turn) ? -MATE + ply : 0;
+
+    scoreMoves(moves, ply, hashMove);
+    var bestMove=0;
+    var bound=TranspositionTable.UPPER_BOUND;
+    for (int index=0; index < moves.size(); ++index) {
+      var move=pickNext(moves, ply, index);
+      game.makeMove(move);
+      var score=-negamax(depth - 1, ply + 1, -beta, -alpha);
+      game.unmakeMove();
+      if (stopped) return 0;
+      if (score >= beta) {
+        if (!isTactical(move)) addKiller(ply, move);
+        table.store(key, move, toTable(beta, ply), depth, TranspositionTable.LOWER_BOUND);
+        return beta;
+      }
+      if (score > alpha) {
+        alpha=score;
+        bestMove=move;
+        bound=TranspositionTable.EXACT;
+      }
+    }
+    table.store(key, bestMove, toTable(alpha, ply), depth, bound);
+    return alpha;
+  }
+
+  // distance to mate counts from the root, like mates found by searching
+  private static int tablebaseScore(Tablebase.Probe probe, int ply) {
+    return switch (probe.outcome()) {
+      case WIN -> MATE - ply - probe.plies();
+      case DRAW -> 0;
+      case LOSS -> -MATE + ply + probe.plies();
+    };
+  }
+
+  // mate scores are stored as distance from the stored position, not from the root
+  private static int toTable(int score, int ply) {
+    if (score >= MATE - MAX_PLY) return score + ply;
+    if (score <= -MATE + MAX_PLY) return score - ply;
+    return score;
+  }
+
+  private static int fromTable(int score, int ply) {
+    if (score >= MATE - MAX_PLY) return score - ply;
+    if (score <= -MATE + MAX_PLY) return score + ply;
+    return score;
+  }
+
+  // only captures and promotions are searched, unless in check, where every evasion is
+  private int quiescence(int ply, int alpha, int beta) {
+    if (outOfBudget()) return 0;
+    if (ply >= MAX_PLY) return evaluate();
+
+    var turn=game.getTeamTurn();
+    var inCheck=game.isInCheck(turn);
+    if (!inCheck) {
+      var standPat=evaluate();
+      if (standPat >= beta) return beta;
+      if (standPat > alpha) alpha=standPat;
+    }
+
+    var moves=buffers[ply];
+    moves.clear();
+    game.legalMoves(turn, moves);
+    if (moves.isEmpty() && inCheck) return -MATE + ply;
+
+    scoreMoves(moves, ply, 0);
+    for (int index=0; index < moves.size(); ++index) {
+      var move=pickNext(moves, ply, index);
+      if (!inCheck && !isTactical(move)) continue;
+      game.makeMove(move);
+      var score=-quiescence(ply + 1, -beta, -alpha);
+      game.unmakeMove();
+      if (stopped) return 0;
+      if (score >= beta) return beta;
+      if (score > alpha) alpha=score;
+    }
+    return alpha;
+  }
+
+  private boolean outOfBudget() {
+    ++nodes;
+    if (nodes >= maxNodes) stopped=true;
+    else if ((nodes & clockInterval) == 0 && (stopSignal.get() || System.nanoTime() >= deadline)) stopped=true;
+    return stopped;
+  }
+
+  /**
+   * {@link Evaluation} from the side to move's point of view
+   */
+  private int evaluate() {
+    var score=Evaluation.evaluate(game);
+    return game.getTeamTurn() == ChessGame.TeamColor.WHITE ? score : -score;
+  }
+
+  private boolean isTactical(int move) {
+    var to=PackedMove.to(move);
+    // a move onto the en passant square is taken as the capture it almost always is
+    return PackedMove.promotion(move) != null || (game.getBoard().getOccupancy() & 1L << to) != 0 || to == game.getEnPassantSquare();
+  }
+
+  private void addKiller(int ply, int move) {
+    if (killers[ply][0] == move) return;
+    killers[ply][1]=killers[ply][0];
+    killers[ply][0]=move;
+  }
+
+  private void scoreMoves(MoveList moves, int ply, int firstMove) {
+    if (orderScores[ply].length < moves.size()) orderScores[ply]=new int[moves.size()];
+    var scores=orderScores[ply];
+    var board=game.getBoard();
+    for (int index=0; index < moves.size(); ++index) {
+      var move=moves.get(index);
+      var victim=board.getPiece(PositionImple.of(PackedMove.to(move)));
+      var promotion=PackedMove.promotion(move);
+      int score;
+      if (move == firstMove) score=2_000_000;
+      else if (victim != null || promotion != null) {
+        var attacker=board.getPiece(PositionImple.of(PackedMove.from(move)));
+        score=1_000_000 - pieceValues[attacker.getPieceType().ordinal()];
+        if (victim != null) score+=pieceValues[victim.getPieceType().ordinal()] * 16;
+        if (promotion != null) score+=pieceValues[promotion.ordinal()];
+      } else if (move == killers[ply][0]) score=900_000;
+      else if (move == killers[ply][1]) score=800_000;
+      else score=0;
+      scores[index]=score;
+    }
+  }
+
+  // selection sort one step at a time, since a cutoff often comes before the list is used up
+  private int pickNext(MoveList moves, int ply, int index) {
+    var scores=orderScores[ply];
+    var best=index;
+    for (int other=index + 1; other < moves.size(); ++other) {
+      if (scores[other] > scores[best]) best=other;
+    }
+    if (best != index) {
+      moves.swap(index, best);
+      var score=scores[index];
+      scores[index]=scores[best];
+      scores[best]=score;
+    }
+    return moves.get(index);
+  }
+}
@@ -0,0 +1,23 @@
+package chess;
+
+/**
+ * Budget for one {@link SearchEngine#search} call. The search stops at
+ * whichever limit it reaches first; a limit of 0 means no limit of that kind.
+ *
+ * @param maxDepth   deepest iteration to search, in plies
+ * @param maxNodes   nodes the search may visit
+ * @param timeMillis wall-clock time the search may take
+ */
+public record SearchLimits(int maxDepth, long maxNodes, long timeMillis) {
+  public static SearchLimits depth(int maxDepth) {
+    return new SearchLimits(maxDepth, 0, 0);
+  }
+
+  public static SearchLimits nodes(long maxNodes) {
+    return new SearchLimits(0, maxNodes, 0);
+  }
+
+  public static SearchLimits time(long timeMillis) {
+    return new SearchLimits(0, 0, timeMillis);
+  }
+}
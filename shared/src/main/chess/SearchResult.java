@@ -0,0 +1,23 @@
+package chess;
+
+/**
+ * Outcome of a {@link SearchEngine#search} call
+ *
+ * @param bestMove     best move found, or null if the side to move has no legal move
+ * @param score        score in centipawns from the side to move's point of view
+ * @param depth        last iteration that finished
+ * @param nodes        positions visited, quiescence included, across all search threads
+ * @param elapsedNanos time the search took
+ */
+public record SearchResult(ChessMove bestMove, int score, int depth, long nodes, long elapsedNanos) {
+  public double nodesPerSecond() {
+    return elapsedNanos == 0 ? 0 : nodes * 1e9 / elapsedNanos;
+  }
+
+  /**
+   * @return true if the score is a forced mate for either side
+   */
+  public boolean isMate() {
+    return Math.abs(score) >= SearchEngine.MATE - SearchEngine.MAX_PLY;
+  }
+}
@@ -0,0 +1,318 @@
+package chess;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.regex.Pattern;
+
+/**
+ * The solved outcome of every position with one set of pieces, such as
+ * {@code KQK} (white king and queen against the black king), from the side to
+ * move's point of view. Built by {@link TablebaseGenerator} and probed through
+ * {@link Tablebases}.
+ * <p>
+ * Positions are indexed by the squares of the white king, the black king and
+ * the other pieces in the order the name lists them, and by the side to move.
+ * The white king is kept on files a-d by mirroring the board, which halves the
+ * table. Each entry packs the outcome and the distance to mate into as few
+ * bits as the longest mate needs: 0 is a draw, an odd number n a win in n
+ * plies, and an even number n a loss in n - 2 plies. Castling and en passant
+ * are not part of the index.
+ */
+public final class Tablebase {
+  public enum Outcome {WIN, DRAW, LOSS}
+
+  /**
+   * @param outcome for the side to move
+   * @param plies   until mate, 0 for a draw
+   */
+  public record Probe(Outcome outcome, int plies) {
+    static Probe of(int code) {
+      if (code == 0) return new Probe(Outcome.DRAW, 0);
+      return (code & 1) != 0 ? new Probe(Outcome.WIN, code) : new Probe(Outcome.LOSS, code - 2);
+    }
+  }
+
+  static final int magic=0x43544231;
+  static final int maxPieces=4;
+
+  private static final Pattern names=Pattern.compile("K[QRBNP]*K[QRBNP]*");
+  // piece letters by PieceType ordinal
+  private static final String letters="KQBNRP";
+  // the order pieces are named in, strongest first
+  static final ChessPiece.PieceType[] nameOrder={ChessPiece.PieceType.QUEEN, ChessPiece.PieceType.ROOK,
+          ChessPiece.PieceType.BISHOP, ChessPiece.PieceType.KNIGHT, ChessPiece.PieceType.PAWN};
+
+  private final String name;
+  // kind of the piece in each slot (see PieceImple#kindIndex): the white king, the black king, then the rest
+  private final int[] kinds;
+  private final long materialKey;
+  private final long flippedMaterialKey;
+  private final int positions;
+  private final int bits;
+  private final long[] words;
+  private final int longestWin;
+
+  private Tablebase(String name, int bits, long[] words) {
+    this.name=name;
+    kinds=kinds(name);
+    positions=positions(kinds.length);
+    materialKey=materialKey(name, false);
+    flippedMaterialKey=materialKey(name, true);
+    this.bits=bits;
+    this.words=words;
+    var longest=0;
+    for (int index=0; index < positions; ++index) {
+      var code=code(index);
+      if ((code & 1) != 0) longest=Math.max(longest, code);
+    }
+    longestWin=longest;
+  }
+
+  /**
+   * Packs the codes of every position, as laid out in the class comment
+   */
+  static Tablebase of(String name, short[] codes) {
+    var maxCode=1;
+    for (var code : codes) maxCode=Math.max(maxCode, code);
+    var bits=32 - Integer.numberOfLeadingZeros(maxCode);
+    var words=new long[(int) (((long) codes.length * bits + 63) >>> 6)];
+    for (int index=0; index < codes.length; ++index) {
+      var bit=(long) index * bits;
+      var word=(int) (bit >>> 6);
+      var shift=(int) (bit & 63);
+      words[word]|=(long) codes[index] << shift;
+      if (shift + bits > 64) words[word + 1]|=(long) codes[index] >>> 64 - shift;
+    }
+    return new Tablebase(name, bits, words);
+  }
+
+  /**
+   * @throws IOException if the file cannot be read or is not a tablebase
+   */
+  public static Tablebase read(Path path) throws IOException {
+    var buffer=ByteBuffer.wrap(Files.readAllBytes(path));
+    try {
+      if (buffer.getInt() != magic) throw new IOException("Not a tablebase: " + path);
+      var nameBytes=new byte[buffer.get()];
+      buffer.get(nameBytes);
+      var name=new String(nameBytes, StandardCharsets.US_ASCII);
+      var bits=buffer.get();
+      var words=new long[buffer.getInt()];
+      if (!names.matcher(name).matches() || name.length() > maxPieces || bits < 1 || bits > 16 ||
+              words.length != ((long) positions(name.length()) * bits + 63) >>> 6) {
+        throw new IOException("Corrupt tablebase: " + path);
+      }
+      buffer.asLongBuffer().get(words);
+      return new Tablebase(name, bits, words);
+    } catch (RuntimeException e) {
+      throw new IOException("Truncated tablebase: " + path, e);
+    }
+  }
+
+  public void write(Path path) throws IOException {
+    var buffer=ByteBuffer.allocate(10 + name.length() + words.length * 8);
+    buffer.putInt(magic).put((byte) name.length()).put(name.getBytes(StandardCharsets.US_ASCII));
+    buffer.put((byte) bits).putInt(words.length);
+    buffer.asLongBuffer().put(words);
+    Files.write(path, buffer.array());
+  }
+
+  public String name() {
+    return name;
+  }
+
+  public int pieceCount() {
+    return kinds.length;
+  }
+
+  /**
+   * @return plies of the longest forced mate in the table
+   */
+  public int longestWin() {
+    return longestWin;
+  }
+
+  long materialKey() {
+    return materialKey;
+  }
+
+  long flippedMaterialKey() {
+    return flippedMaterialKey;
+  }
+
+  int code(int index) {
+    var bit=(long) index * bits;
+    var word=(int) (bit >>> 6);
+    var shift=(int) (bit & 63);
+    var value=words[word] >>> shift;
+    if (shift + bits > 64) value|=words[word + 1] << 64 - shift;
+    return (int) (value & (1L << bits) - 1);
+  }
+
+  /**
+   * Code of a position with this table's pieces. When flipped, the board has
+   * the colors the other way round, and is read upside down with the colors
+   * swapped.
+   */
+  int code(ChessBoard board, ChessGame.TeamColor toMove, boolean flipped) {
+    var squares=new int[kinds.length];
+    long taken=0;
+    for (int slot=0; slot < kinds.length; ++slot) {
+      var kind=flipped ? (kinds[slot] + 6) % 12 : kinds[slot];
+      var piece=PieceImple.of(kind);
+      // two pieces of a kind fill their slots lowest square first
+      var square=Long.numberOfTrailingZeros(board.getPieces(piece.getTeamColor(), piece.getPieceType()) & ~taken);
+      taken|=1L << square;
+      squares[slot]=flipped ? square ^ 56 : square;
+    }
+    var whiteToMove=(toMove == ChessGame.TeamColor.WHITE) != flipped;
+    return code(index(squares, whiteToMove ? 0 : 1));
+  }
+
+  /**
+   * @return positions in a table of this many pieces
+   */
+  static int positions(int pieces) {
+    return 2 * 32 * (1 << 6 * (pieces - 1));
+  }
+
+  /**
+   * @param squares square of each slot, changed by nothing
+   * @param side    0 for white to move, 1 for black
+   */
+  static int index(int[] squares, int side) {
+    var mirror=(squares[0] & 7) >= 4 ? 7 : 0;
+    var king=squares[0] ^ mirror;
+    var index=(king >>> 3) * 4 + (king & 7);
+    var scale=32;
+    for (int slot=1; slot < squares.length; ++slot) {
+      index+=scale * (squares[slot] ^ mirror);
+      scale*=64;
+    }
+    return index * 2 + side;
+  }
+
+  /**
+   * Fills in the square of each slot for an index
+   *
+   * @return the side to move, 0 for white
+   */
+  static int decode(int index, int[] squares) {
+    var side=index & 1;
+    index>>>=1;
+    var king=index % 32;
+    squares[0]=king / 4 * 8 + king % 4;
+    index/=32;
+    for (int slot=1; slot < squares.length; ++slot) {
+      squares[slot]=index % 64;
+      index/=64;
+    }
+    return side;
+  }
+
+  /**
+   * Writes a name the way tables are stored: each side's pieces strongest
+   * first, and the side with more material as white
+   *
+   * @throws IllegalArgumentException if it is not a name like {@code KRKP}
+   */
+  static String normalize(String name) {
+    if (!names.matcher(name).matches()) throw new IllegalArgumentException("Not a tablebase name: " + name);
+    if (name.length() > maxPieces) throw new IllegalArgumentException("Tablebases go up to " + maxPieces + " pieces: " + name);
+    var split=name.indexOf('K', 1);
+    var white=sortPieces(name.substring(1, split));
+    var black=sortPieces(name.substring(split + 1));
+    var stronger=Integer.compare(material(white), material(black));
+    if (stronger < 0 || stronger == 0 && white.compareTo(black) < 0) return "K" + black + "K" + white;
+    return "K" + white + "K" + black;
+  }
+
+  /**
+   * @return true if neither side has enough to mate: no pawns, queens or
+   * rooks, and one minor piece at most
+   */
+  static boolean isDrawn(String name) {
+    return name.chars().noneMatch(letter -> letter == 'Q' || letter == 'R' || letter == 'P') && name.length() <= 3;
+  }
+
+  static boolean isDrawn(ChessBoard board) {
+    var white=ChessGame.TeamColor.WHITE;
+    var black=ChessGame.TeamColor.BLACK;
+    for (var color : ChessGame.TeamColor.values()) {
+      if ((board.getPieces(color, ChessPiece.PieceType.QUEEN) | board.getPieces(color, ChessPiece.PieceType.ROOK) |
+              board.getPieces(color, ChessPiece.PieceType.PAWN)) != 0) return false;
+    }
+    var minors=board.getPieces(white, ChessPiece.PieceType.BISHOP) | board.getPieces(white, ChessPiece.PieceType.KNIGHT) |
+            board.getPieces(black, ChessPiece.PieceType.BISHOP) | board.getPieces(black, ChessPiece.PieceType.KNIGHT);
+    return Long.bitCount(minors) <= 1;
+  }
+
+  /**
+   * Piece counts of a board, four bits per kind in {@link #nameOrder}, white first
+   */
+  static long materialKey(ChessBoard board) {
+    long key=0;
+    for (var color : ChessGame.TeamColor.values()) {
+      for (var type : nameOrder) key=key << 4 | Long.bitCount(board.getPieces(color, type));
+    }
+    return key;
+  }
+
+  // the same key from a name; flipped gives the key of the board with the colors the other way round
+  private static long materialKey(String name, boolean flipped) {
+    var split=name.indexOf('K', 1);
+    var white=name.substring(1, split);
+    var black=name.substring(split + 1);
+    long key=0;
+    for (var side : flipped ? new String[]{black, white} : new String[]{white, black}) {
+      for (var type : nameOrder) {
+        var letter=letters.charAt(type.ordinal());
+        key=key << 4 | side.chars().filter(piece -> piece == letter).count();
+      }
+    }
+    return key;
+  }
+
+  static int[] kinds(String name) {
+    var kinds=new int[name.length()];
+    kinds[0]=PieceImple.kindIndex(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KING);
+    kinds[1]=PieceImple.kindIndex(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KING);
+    var slot=2;
+    var color=ChessGame.TeamColor.WHITE;
+    for (int position=1; position < name.length(); ++position) {
+      var letter=name.charAt(position);
+      if (letter == 'K') color=ChessGame.TeamColor.BLACK;
+      else kinds[slot++]=PieceImple.kindIndex(color, type(letter));
+    }
+    return kinds;
+  }
+
+  static ChessPiece.PieceType type(char letter) {
+    return ChessPiece.PieceType.values()[letters.indexOf(letter)];
+  }
+
+  static char letter(ChessPiece.PieceType type) {
+    return letters.charAt(type.ordinal());
+  }
+
+  private static String sortPieces(String pieces) {
+    var sorted=new StringBuilder();
+    for (var type : nameOrder) {
+      var letter=letter(type);
+      pieces.chars().filter(piece -> piece == letter).forEach(piece -> sorted.append(letter));
+    }
+    return sorted.toString();
+  }
+
+  private static int material(String pieces) {
+    return pieces.chars().map(letter -> Evaluation.pieceValues[letters.indexOf(letter)]).sum();
+  }
+
+  @Override
+  public String toString() {
+    return name;
+  }
+}
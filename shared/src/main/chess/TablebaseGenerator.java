@@ -0,0 +1,273 @@
+package chess;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Solves a {@link Tablebase} by retrograde analysis. Every position is first
+ * looked at once, with moves from {@link LegalMoveGenerator}: checkmates are
+ * lost, stalemates drawn, and captures and promotions, which leave the table,
+ * are scored from the smaller tables already solved. Then, one ply of distance
+ * at a time, the results are carried back to the positions that lead to them,
+ * found by running {@link MoveCalculator} backwards from each piece: a move
+ * into a lost position wins, and a position whose every move reaches a won
+ * one is lost. Whatever is left undecided is a draw.
+ * <p>
+ * En passant is left out, as in the table's index.
+ */
+public class TablebaseGenerator {
+  private static final byte unknown=0, win=1, loss=2, draw=3, illegal=4;
+
+  private final String name;
+  private final Tablebases known;
+  private final int[] kinds;
+  private final int positions;
+  private final byte[] outcomes;
+  private final short[] plies;
+  // in-table moves of a position not yet known to lose
+  private final byte[] remaining;
+  // longest loss through a move that leaves the table, or -1
+  private final short[] exitLosses;
+  private final boolean[] drawExits;
+  private int lastPly;
+
+  private final BoardImple board=new BoardImple();
+  private final LegalMoveGenerator generator=new LegalMoveGenerator();
+  private final MoveList moves=new MoveList();
+  private final int[] squares;
+
+  /**
+   * @param name  normalized name of the table to solve
+   * @param known tables to score captures and promotions with
+   */
+  TablebaseGenerator(String name, Tablebases known) {
+    this.name=name;
+    this.known=known;
+    kinds=Tablebase.kinds(name);
+    squares=new int[kinds.length];
+    positions=Tablebase.positions(kinds.length);
+    outcomes=new byte[positions];
+    plies=new short[positions];
+    remaining=new byte[positions];
+    exitLosses=new short[positions];
+    drawExits=new boolean[positions];
+  }
+
+  public static void main(String[] args) throws IOException {
+    if (args.length < 2) {
+      System.out.println("Usage: TablebaseGenerator <directory> <table>... (for example KQK KRK KPK)");
+      return;
+    }
+    var start=System.nanoTime();
+    var tables=Tablebases.generate(Arrays.copyOfRange(args, 1, args.length));
+    var directory=Path.of(args[0]);
+    Files.createDirectories(directory);
+    tables.write(directory);
+    for (var table : tables.tables()) System.out.printf("%s: longest mate %d plies%n", table.name(), table.longestWin());
+    System.out.printf("%d tables in %.3fs%n", tables.tables().size(), (System.nanoTime() - start) / 1e9);
+  }
+
+  /**
+   * @return tables a table's captures and promotions lead to, normalized,
+   * leaving out those that cannot be won
+   */
+  static List<String> dependencies(String name) {
+    var dependencies=new ArrayList<String>();
+    for (int position=1; position < name.length(); ++position) {
+      var letter=name.charAt(position);
+      if (letter == 'K') continue;
+      var rest=name.substring(0, position) + name.substring(position + 1);
+      dependencies.add(rest);
+      if (letter == 'P') {
+        for (var promotion : "QRBN".toCharArray()) dependencies.add(name.substring(0, position) + promotion + name.substring(position + 1));
+      }
+    }
+    var normalized=new ArrayList<String>();
+    for (var dependency : dependencies) {
+      var table=Tablebase.normalize(dependency);
+      if (!Tablebase.isDrawn(table) && !normalized.contains(table)) normalized.add(table);
+    }
+    return normalized;
+  }
+
+  Tablebase generate() {
+    for (int index=0; index < positions; ++index) examine(index);
+    for (int ply=0; ply <= lastPly; ++ply) {
+      for (int index=0; index < positions; ++index) {
+        if ((outcomes[index] == win || outcomes[index] == loss) && plies[index] == ply) retract(index, ply);
+      }
+    }
+
+    var codes=plies;
+    for (int index=0; index < positions; ++index) {
+      codes[index]=switch (outcomes[index]) {
+        case win -> plies[index];
+        case loss -> (short) (plies[index] + 2);
+        default -> 0;
+      };
+    }
+    return Tablebase.of(name, codes);
+  }
+
+  // sorts out the position's own moves, before anything is carried back
+  private void examine(int index) {
+    var side=Tablebase.decode(index, squares);
+    if (!place()) {
+      outcomes[index]=illegal;
+      return;
+    }
+    try {
+      var toMove=side == 0 ? ChessGame.TeamColor.WHITE : ChessGame.TeamColor.BLACK;
+      var other=side == 0 ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+      // the side that just moved cannot have left its king in check
+      if (MoveCalculator.isSquareAttacked(board, squares[side ^ 1], toMove)) {
+        outcomes[index]=illegal;
+        return;
+      }
+
+      moves.clear();
+      generator.generate(board, toMove, 0, -1, moves);
+      if (moves.isEmpty()) {
+        if (MoveCalculator.isSquareAttacked(board, squares[side], other)) setLoss(index, 0);
+        else outcomes[index]=draw;
+        return;
+      }
+
+      var fastestWin=Integer.MAX_VALUE;
+      var slowestLoss=-1;
+      var drawn=false;
+      var inside=0;
+      for (int move=0; move < moves.size(); ++move) {
+        var packed=moves.get(move);
+        if (board.getPiece(PositionImple.of(PackedMove.to(packed))) == null && PackedMove.promotion(packed) == null) {
+          ++inside;
+          continue;
+        }
+        var code=exitCode(packed, other);
+        if (code == 0) drawn=true;
+        else if ((code & 1) != 0) slowestLoss=Math.max(slowestLoss, code + 1);
+        else fastestWin=Math.min(fastestWin, code - 1);
+      }
+
+      remaining[index]=(byte) inside;
+      exitLosses[index]=(short) slowestLoss;
+      drawExits[index]=drawn;
+      if (fastestWin != Integer.MAX_VALUE) setWin(index, fastestWin);
+      else if (inside == 0) {
+        if (drawn) outcomes[index]=draw;
+        else setLoss(index, slowestLoss);
+      }
+    } finally {
+      lift();
+    }
+  }
+
+  // plays a capture or promotion and looks the result up in the smaller tables
+  private int exitCode(int move, ChessGame.TeamColor other) {
+    var from=PositionImple.of(PackedMove.from(move));
+    var to=PositionImple.of(PackedMove.to(move));
+    var piece=board.getPiece(from);
+    var captured=board.getPiece(to);
+    var promotion=PackedMove.promotion(move);
+    board.addPiece(from, null);
+    board.addPiece(to, promotion == null ? piece : PieceImple.of(piece.getTeamColor(), promotion));
+    var code=known.code(board, other);
+    board.addPiece(to, captured);
+    board.addPiece(from, piece);
+    if (code < 0) throw new IllegalStateException("Solving " + name + " needs a table that is not there");
+    return code;
+  }
+
+  // hands a decided position's result to every position one move before it
+  private void retract(int index, int ply) {
+    var side=Tablebase.decode(index, squares);
+    place();
+    try {
+      var won=outcomes[index] == win;
+      var mover=side == 0 ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+      for (int slot=0; slot < kinds.length; ++slot) {
+        var piece=PieceImple.of(kinds[slot]);
+        if (piece.getTeamColor() != mover) continue;
+        var to=squares[slot];
+        moves.clear();
+        if (piece.getPieceType() == ChessPiece.PieceType.PAWN) pawnRetractions(to, mover);
+        else MoveCalculator.getMoves(board, to, piece, moves);
+
+        for (int move=0; move < moves.size(); ++move) {
+          var from=PackedMove.to(moves.get(move));
+          // the piece came from an empty square, since captures are moves into the table, not within it
+          if ((board.getOccupancy() & 1L << from) != 0) continue;
+          squares[slot]=from;
+          update(Tablebase.index(squares, side ^ 1), won, ply);
+          squares[slot]=to;
+        }
+      }
+    } finally {
+      lift();
+    }
+  }
+
+  // squares a pawn can have stepped from, as packed moves starting on its square
+  private void pawnRetractions(int square, ChessGame.TeamColor color) {
+    var white=color == ChessGame.TeamColor.WHITE;
+    var back=white ? -8 : 8;
+    var behind=square + back;
+    // a pawn never stands on an end row
+    if (behind >>> 3 == 0 || behind >>> 3 == 7) return;
+    moves.add(PackedMove.of(square, behind));
+    // the double step, over a square that has to be empty too
+    if ((square >>> 3) == (white ? 3 : 4) && (board.getOccupancy() & 1L << behind) == 0) moves.add(PackedMove.of(square, behind + back));
+  }
+
+  private void update(int index, boolean childWon, int ply) {
+    switch (outcomes[index]) {
+      case unknown -> {
+        if (!childWon) setWin(index, ply + 1);
+        else if (--remaining[index] == 0 && !drawExits[index]) setLoss(index, Math.max(ply + 1, exitLosses[index]));
+      }
+      // won through a capture or promotion, maybe more slowly than through this move
+      case win -> {
+        if (!childWon && plies[index] > ply + 1) plies[index]=(short) (ply + 1);
+      }
+      default -> {
+      }
+    }
+  }
+
+  private void setWin(int index, int ply) {
+    outcomes[index]=win;
+    plies[index]=(short) ply;
+    lastPly=Math.max(lastPly, ply);
+  }
+
+  private void setLoss(int index, int ply) {
+    outcomes[index]=loss;
+    plies[index]=(short) ply;
+    lastPly=Math.max(lastPly, ply);
+  }
+
+  // puts the pieces of the decoded position on the board, unless two share a square or a pawn is on an end row
+  private boolean place() {
+    long used=0;
+    for (int slot=0; slot < kinds.length; ++slot) {
+      var bit=1L << squares[slot];
+      if ((used & bit) != 0) return false;
+      used|=bit;
+      var row=squares[slot] >>> 3;
+      if (PieceImple.of(kinds[slot]).getPieceType() == ChessPiece.PieceType.PAWN && (row == 0 || row == 7)) return false;
+    }
+    for (int slot=0; slot < kinds.length; ++slot) board.addPiece(PositionImple.of(squares[slot]), PieceImple.of(kinds[slot]));
+    return true;
+  }
+
+  private void lift() {
+    for (int slot=0; slot < kinds.length; ++slot) {
+      var position=PositionImple.of(squares[slot]);
+      if (board.getPiece(position) == PieceImple.of(kinds[slot])) board.addPiece(position, null);
+    }
+  }
+}
@@ -0,0 +1,150 @@
+package chess;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A set of {@link Tablebase}s to probe positions against. A table answers for
+ * its own pieces and for the same pieces with the colors swapped, and
+ * positions neither side can win are drawn without a table. Positions where
+ * castling or en passant is possible are not answered.
+ * <p>
+ * Not changed once generated or loaded, so one set can be shared by every
+ * thread.
+ */
+public class Tablebases {
+  private final ArrayList<Tablebase> tables=new ArrayList<>();
+  // kings and a minor piece or less are drawn whatever the tables are
+  private int maxPieces=3;
+
+  private Tablebases() {
+  }
+
+  /**
+   * Solves the tables, and the smaller ones they lead to through captures and
+   * promotions
+   *
+   * @param names tables such as {@code KQK}, {@code KRK} or {@code KPK}, up to four pieces
+   * @throws IllegalArgumentException if a name is not a table
+   */
+  public static Tablebases generate(String... names) {
+    var tablebases=new Tablebases();
+    for (var name : names) tablebases.solve(Tablebase.normalize(name));
+    return tablebases;
+  }
+
+  private void solve(String name) {
+    if (Tablebase.isDrawn(name) || get(name) != null) return;
+    for (var dependency : TablebaseGenerator.dependencies(name)) solve(dependency);
+    add(new TablebaseGenerator(name, this).generate());
+  }
+
+  /**
+   * Reads every {@code .tb} file in a directory
+   *
+   * @throws IOException if one of them cannot be read
+   */
+  public static Tablebases load(Path directory) throws IOException {
+    var tablebases=new Tablebases();
+    try (var files=Files.list(directory)) {
+      for (var file : files.filter(path -> path.toString().endsWith(".tb")).sorted().toList()) tablebases.add(Tablebase.read(file));
+    }
+    return tablebases;
+  }
+
+  /**
+   * Writes each table to {@code <name>.tb} in the directory
+   */
+  public void write(Path directory) throws IOException {
+    for (var table : tables) table.write(directory.resolve(table.name() + ".tb"));
+  }
+
+  private void add(Tablebase table) {
+    tables.add(table);
+    maxPieces=Math.max(maxPieces, table.pieceCount());
+  }
+
+  public List<Tablebase> tables() {
+    return Collections.unmodifiableList(tables);
+  }
+
+  /**
+   * @return the table for some pieces, named as in {@link #generate}, or null
+   */
+  public Tablebase get(String name) {
+    var normalized=Tablebase.normalize(name);
+    for (var table : tables) {
+      if (table.name().equals(normalized)) return table;
+    }
+    return null;
+  }
+
+  /**
+   * @return the outcome for the side to move, or null if the position is not
+   * covered
+   */
+  public Tablebase.Probe probe(GameImple game) {
+    if (Long.bitCount(game.getBoard().getOccupancy()) > maxPieces) return null;
+    if (game.getCastlingRights() != 0 || game.getEnPassantSquare() >= 0) return null;
+    var code=code(game.getBoard(), game.getTeamTurn());
+    return code < 0 ? null : Tablebase.Probe.of(code);
+  }
+
+  /**
+   * Picks the move that keeps the position's outcome: the quickest mate when
+   * winning, a move that holds the draw, or the longest defense when losing
+   *
+   * @param game position to look at, which is played on and put back
+   * @return the packed move, or -1 if the position is not covered or has no
+   * legal moves
+   */
+  public int bestMove(GameImple game) {
+    if (probe(game) == null) return -1;
+    var moves=new MoveList();
+    game.legalMoves(game.getTeamTurn(), moves);
+
+    var bestMove=-1;
+    var bestRank=Integer.MIN_VALUE;
+    for (int index=0; index < moves.size(); ++index) {
+      var move=moves.get(index);
+      game.makeMove(move);
+      var reply=probe(game);
+      game.unmakeMove();
+      if (reply == null) continue;
+      // the reply is the opponent's outcome
+      var rank=switch (reply.outcome()) {
+        case LOSS -> 1000 - reply.plies();
+        case DRAW -> 0;
+        case WIN -> -1000 + reply.plies();
+      };
+      if (rank > bestRank) {
+        bestRank=rank;
+        bestMove=move;
+      }
+    }
+    return bestMove;
+  }
+
+  /**
+   * @return the code of a board in its table (see {@link Tablebase}), 0 if
+   * neither side can win, or -1 if there is no table for it or it does not
+   * have one king a side
+   */
+  int code(ChessBoard board, ChessGame.TeamColor toMove) {
+    // the material key leaves the kings out, so they are counted here
+    for (var color : ChessGame.TeamColor.values()) {
+      if (Long.bitCount(board.getPieces(color, ChessPiece.PieceType.KING)) != 1) return -1;
+    }
+    if (Tablebase.isDrawn(board)) return 0;
+    var key=Tablebase.materialKey(board);
+    for (var table : tables) {
+      if (table.materialKey() == key) return table.code(board, toMove, false);
+      if (table.flippedMaterialKey() == key) return table.code(board, toMove, true);
+    }
+    return -1;
+  }
+}
@@ -0,0 +1,110 @@
+package chess;
+
+import java.util.Arrays;
+
+/**
+ * Fixed-size table of search results keyed by 64-bit position hash (see
+ * {@link GameImple#getHash()}), meant to be shared by every search thread.
+ * <p>
+ * Each entry is two longs in one primitive array: the key XOR the data, then
+ * the data. There are no locks, so two threads can write the same slot at
+ * the same time and leave a torn entry; a reader only accepts an entry whose
+ * two halves XOR back to its key, so a torn entry reads as a miss instead of
+ * as another position's result.
+ * <p>
+ * The data long holds the best move in bits 0-15, the bound in bits 16-17,
+ * the depth in bits 18-24, the age in bits 25-31 and the score in the top 32
+ * bits. A slot is overwritten by the same position, by an entry from an older
+ * search, or by a search at least as deep.
+ */
+public class TranspositionTable {
+  public static final int EXACT=1;
+  // score is at least the stored one (the search failed high)
+  public static final int LOWER_BOUND=2;
+  // score is at most the stored one (the search failed low)
+  public static final int UPPER_BOUND=3;
+
+  private static final int ageMask=0x7F;
+
+  private final long[] entries;
+  private final int indexMask;
+  private volatile int age;
+
+  /**
+   * @param megabytes memory the table may use; rounded down to a power of two
+   *                  entries, and to 8 GB at most
+   */
+  public TranspositionTable(int megabytes) {
+    if (megabytes < 1) throw new IllegalArgumentException("Transposition table needs at least 1 MB");
+    // 16 bytes per entry, two longs each, and the array length has to fit an int: 2^29 entries (8 GB) at most
+    var wanted=Math.min((long) megabytes << 20 >>> 4, 1L << 29);
+    var capacity=Long.highestOneBit(wanted);
+    entries=new long[(int) capacity * 2];
+    indexMask=(int) capacity - 1;
+  }
+
+  public int capacity() {
+    return indexMask + 1;
+  }
+
+  /**
+   * Starts a new search, so entries from earlier searches are replaced first
+   */
+  public void newSearch() {
+    age=age + 1 & ageMask;
+  }
+
+  public void clear() {
+    Arrays.fill(entries, 0L);
+  }
+
+  /**
+   * @param key position hash
+   * @return the entry's data for the position, or 0 if it is not in the table
+   */
+  public long probe(long key) {
+    var slot=((int) key & indexMask) * 2;
+    var data=entries[slot + 1];
+    return (entries[slot] ^ data) == key ? data : 0;
+  }
+
+  /**
+   * @param key   position hash
+   * @param move  best move found, as a {@link PackedMove}, or 0 for none
+   * @param score score of the position for the side to move
+   * @param depth depth the position was searched to
+   * @param bound {@link #EXACT}, {@link #LOWER_BOUND} or {@link #UPPER_BOUND}
+   */
+  public void store(long key, int move, int score, int depth, int bound) {
+    var slot=((int) key & indexMask) * 2;
+    var current=entries[slot + 1];
+    var currentAge=age;
+    if (current != 0 && (entries[slot] ^ current) != key &&
+            age(current) == currentAge && depth(current) > depth) return;
+
+    var data=(move & 0xFFFFL) | (long) bound << 16 | (long) Math.min(depth, 127) << 18 |
+            (long) currentAge << 25 | (long) score << 32;
+    entries[slot]=key ^ data;
+    entries[slot + 1]=data;
+  }
+
+  public static int move(long data) {
+    return (int) data & 0xFFFF;
+  }
+
+  public static int bound(long data) {
+    return (int) (data >>> 16) & 0x3;
+  }
+
+  public static int depth(long data) {
+    return (int) (data >>> 18) & 0x7F;
+  }
+
+  public static int score(long data) {
+    return (int) (data >> 32);
+  }
+
+  private static int age(long data) {
+    return (int) (data >>> 25) & ageMask;
+  }
+}
@@ -0,0 +1,68 @@
+package chess;
+
+import java.util.SplittableRandom;
+
+/**
+ * Random keys for Zobrist hashing. A position's hash is the XOR of the key of
+ * every (piece, square) pair on the board, plus {@link #blackToMove} when it is
+ * black's turn, plus keys for the castling rights and the en passant file, so
+ * placing or removing a piece updates it with a single XOR.
+ * <p>
+ * The keys come from a fixed seed, so hashes are stable across runs and can be
+ * stored.
+ */
+public final class Zobrist {
+  /**
+   * XORed into a game's hash when black is to move
+   */
+  public static final long blackToMove;
+  private static final long[] pieceKeys=new long[12 * 64];
+  // one key per castling bit set, combined ahead of time; no rights is 0
+  private static final long[] castlingKeys=new long[16];
+  private static final long[] enPassantKeys=new long[8];
+
+  static {
+    var random=new SplittableRandom(0x5EED_C4E55L);
+    for (int index=0; index < pieceKeys.length; ++index) pieceKeys[index]=random.nextLong();
+    blackToMove=random.nextLong();
+    // every key is drawn from the one seed in this order; new key groups go last so stored hashes stay valid
+    for (int right=1; right < 16; right<<=1) {
+      var key=random.nextLong();
+      for (int rights=0; rights < 16; ++rights) {
+        if ((rights & right) != 0) castlingKeys[rights]^=key;
+      }
+    }
+    for (int file=0; file < 8; ++file) enPassantKeys[file]=random.nextLong();
+  }
+
+  private Zobrist() {
+  }
+
+  /**
+   * @param piece  piece on the square, may be null
+   * @param square {@code row * 8 + column}
+   * @return the key of the piece on the square, or 0 for an empty square
+   */
+  public static long pieceKey(ChessPiece piece, int square) {
+    if (piece == null) return 0;
+    return pieceKeys[(piece.getTeamColor().ordinal() * 6 + piece.getPieceType().ordinal()) * 64 + square];
+  }
+
+  static long pieceKey(int kind, int square) {
+    return pieceKeys[kind * 64 + square];
+  }
+
+  /**
+   * @param castlingRights castling bit set, see {@link GameImple#getCastlingRights()}
+   */
+  public static long castlingKey(int castlingRights) {
+    return castlingKeys[castlingRights];
+  }
+
+  /**
+   * @param file column of the en passant square
+   */
+  public static long enPassantKey(int file) {
+    return enPassantKeys[file];
+  }
+}
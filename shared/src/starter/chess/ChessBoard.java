@@ -31,6 +31,57 @@ public interface ChessBoard {
    */
   void resetBoard();
 
+  /**
+   * Gets where a team's king is, without scanning the board when possible
+   *
+   * @param teamColor team whose king to find
+   * @return the king's position, or null if the team has no king on the board
+   */
+  ChessPosition getKingPosition(ChessGame.TeamColor teamColor);
+
+  /**
+   * Gets the Zobrist hash of the pieces on the board (see {@link Zobrist}),
+   * which is kept up to date as pieces are added and removed
+   *
+   * @return 64-bit hash of the board
+   */
+  long getHash();
+
+  /**
+   * Gets the occupied squares as a bitboard, bit {@code row * 8 + column} set
+   * when a piece is on that square
+   *
+   * @return occupancy of both teams
+   */
+  long getOccupancy();
+
+  /**
+   * Gets the squares occupied by one team, in the same layout as
+   * {@link #getOccupancy()}
+   *
+   * @param teamColor team whose pieces to include
+   * @return occupancy of the team
+   */
+  long getOccupancy(ChessGame.TeamColor teamColor);
+
+  /**
+   * Gets the squares holding one kind of piece, in the same layout as
+   * {@link #getOccupancy()}
+   *
+   * @param teamColor team whose pieces to include
+   * @param type      type of piece to include
+   * @return bitboard of the pieces
+   */
+  long getPieces(ChessGame.TeamColor teamColor, ChessPiece.PieceType type);
+
+  /**
+   * Gets the sum of {@link Evaluation#pieceSquare} over the pieces on the
+   * board, which is kept up to date as pieces are added and removed
+   *
+   * @return material and piece-square score in centipawns, positive when white is better
+   */
+  int getPieceSquareScore();
+
   boolean equals(Object obj);
 
   String toString();
@@ -31,6 +31,15 @@ public interface ChessGame {
    */
   Collection<ChessMove> validMoves(ChessPosition startPosition);
 
+  /**
+   * Gets every valid move of a team at once, sharing the check and pin analysis
+   * between its pieces
+   *
+   * @param teamColor team to get valid moves for
+   * @return Set of valid moves for all the team's pieces
+   */
+  Collection<ChessMove> allLegalMoves(TeamColor teamColor);
+
   /**
    * Makes a move in a chess game
    *
@@ -64,6 +73,15 @@ public interface ChessGame {
    */
   boolean isInStalemate(TeamColor teamColor);
 
+  /**
+   * Works out check, checkmate and stalemate together, from a single pass over
+   * the team's legal moves, along with draws by repetition or the fifty-move rule
+   *
+   * @param teamColor which team to evaluate
+   * @return the state of the given team
+   */
+  GameStatus evaluateStatus(TeamColor teamColor);
+
   /**
    * Gets the current chessboard
    *
@@ -78,6 +96,15 @@ public interface ChessGame {
    */
   void setBoard(ChessBoard board);
 
+  /**
+   * Gets the Zobrist hash of the position: the pieces, the team to move, the
+   * castling rights that still hold, and the en passant file when a capture
+   * there is possible. Equal games always have equal hashes.
+   *
+   * @return 64-bit hash of the position
+   */
+  long getHash();
+
   boolean equals(Object obj);
 
   String serialize();
@@ -91,4 +118,18 @@ public interface ChessGame {
     WHITE,
     BLACK
   }
+
+  /**
+   * The state of one team after a move
+   */
+  enum GameStatus {
+    NORMAL,
+    CHECK,
+    CHECKMATE,
+    STALEMATE,
+    // the same position for the third time, with the same team to move
+    THREEFOLD_REPETITION,
+    // fifty moves by each team without a capture or a pawn move
+    FIFTY_MOVE_RULE
+  }
 }
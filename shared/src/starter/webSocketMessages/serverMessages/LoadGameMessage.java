@@ -2,19 +2,23 @@ package webSocketMessages.serverMessages;
 
 import chess.ChessGame;
 import chess.GameImple;
+import chess.PositionCodec;
+
+import java.util.Base64;
 
 public class LoadGameMessage extends ServerMessage {
+  // the position in PositionCodec's binary encoding, as base64
   private final String game;
   private final ChessGame.TeamColor currentTeam;
 
   public LoadGameMessage(GameImple game) {
     super(ServerMessageType.LOAD_GAME);
-    this.game=game.serialize();
+    this.game=Base64.getEncoder().encodeToString(PositionCodec.encode(game));
     currentTeam=game.getTeamTurn();
   }
 
   public GameImple getGame() {
-    return GameImple.deserialize(game, currentTeam);
+    return PositionCodec.decode(Base64.getDecoder().decode(game));
   }
 
   @Override
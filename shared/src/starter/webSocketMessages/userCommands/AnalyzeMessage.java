@@ -0,0 +1,15 @@
+package webSocketMessages.userCommands;
+
+public class AnalyzeMessage extends UserGameCommand {
+  private final int gameID;
+
+  public AnalyzeMessage(String authToken, int gameID) {
+    super(authToken);
+    this.gameID=gameID;
+    this.commandType=CommandType.ANALYZE;
+  }
+
+  public int getGameID() {
+    return gameID;
+  }
+}
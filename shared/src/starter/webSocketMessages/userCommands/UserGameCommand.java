@@ -44,6 +44,7 @@ public class UserGameCommand {
     JOIN_OBSERVER,
     MAKE_MOVE,
     LEAVE,
-    RESIGN
+    RESIGN,
+    ANALYZE
   }
 }
@@ -30,4 +30,8 @@ public class UserMessageFactory {
   public ResignMessage resign(int gameID) {
     return new ResignMessage(authToken.authToken(), gameID);
   }
+
+  public AnalyzeMessage analyze(int gameID) {
+    return new AnalyzeMessage(authToken.authToken(), gameID);
+  }
 }
@@ -52,8 +52,16 @@ public class MySqlDAO implements DatabaseAccess {
             primary key (authToken),
             index(username)
           );
+          """,
+          """
+          create table if not exists %DB_NAME%.migrations (
+            name varchar(64) not null,
+            primary key (name)
+          );
           """
   };
+  // boards stored before the a-file was column 0 have every row mirrored
+  private static final String mirroredFilesMigration="mirrored-files";
 
   private final Adapter<Game> gameAdapter=rs -> new Game(
           rs.getInt(1),
@@ -101,11 +109,62 @@ public class MySqlDAO implements DatabaseAccess {
           preparedStatement.executeUpdate();
         }
       }
+      migrateMirroredFiles(conn);
     } catch (SQLException ex) {
       throw new DataAccessException(ex.getMessage());
     }
   }
 
+  /**
+   * Rewrites the stored games to the current board layout, king on the e-file,
+   * once per database: the migration is recorded in the same transaction
+   *
+   * @param conn connection to run it on
+   * @throws SQLException
+   */
+  private void migrateMirroredFiles(Connection conn) throws SQLException {
+    try (var check=conn.prepareStatement(setDb("select name from %DB_NAME%.migrations where name=?;"))) {
+      check.setString(1, mirroredFilesMigration);
+      try (var rs=check.executeQuery()) {
+        if (rs.next()) return;
+      }
+    }
+
+    conn.setAutoCommit(false);
+    try {
+      try (var select=conn.prepareStatement(setDb("select id, game from %DB_NAME%.games for update;"));
+           var update=conn.prepareStatement(setDb("update %DB_NAME%.games set game = ? where id = ?;"));
+           var rs=select.executeQuery()) {
+        while (rs.next()) {
+          update.setString(1, mirrorFiles(rs.getString(2)));
+          update.setInt(2, rs.getInt(1));
+          update.addBatch();
+        }
+        update.executeBatch();
+      }
+      try (var record=conn.prepareStatement(setDb("insert into %DB_NAME%.migrations values(?);"))) {
+        record.setString(1, mirroredFilesMigration);
+        record.executeUpdate();
+      }
+      conn.commit();
+    } catch (SQLException ex) {
+      conn.rollback();
+      throw ex;
+    } finally {
+      conn.setAutoCommit(true);
+    }
+  }
+
+  /**
+   * @param serializedGame 64 characters, one row of eight after another
+   * @return the same board with each row read right to left
+   */
+  static String mirrorFiles(String serializedGame) {
+    var sb=new StringBuilder(64);
+    for (int row=0; row < 8; ++row) sb.append(new StringBuilder(serializedGame.substring(row * 8, row * 8 + 8)).reverse());
+    return sb.toString();
+  }
+
   /**
    * Get a connection to the database
    *
@@ -3,6 +3,14 @@ package server;
 import chess.ChessGame;
 import chess.GameImple;
 import chess.InvalidMoveException;
+import chess.MoveCache;
+import chess.OpeningBook;
+import chess.PackedMove;
+import chess.ParallelSearch;
+import chess.SearchLimits;
+import chess.SearchResult;
+import chess.Tablebase;
+import chess.Tablebases;
 import com.google.gson.Gson;
 import dataAccess.DataAccessException;
 import models.AuthToken;
@@ -16,19 +24,71 @@ import webSocketMessages.serverMessages.ServerMessage;
 import webSocketMessages.userCommands.*;
 
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
 
 public class WebsocketGameInfo {
+  // analysis gets half the cores, so the websocket threads always have some left
+  private static final int analysisThreads=Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+  private static final int analysisTableMegabytes=64;
+  private static final int analysisQueueCapacity=8;
+  private static final long analysisMillis=2000;
+  // built with OpeningBookBuilder; hints search from scratch when it is missing
+  private static final Path bookPath=Path.of("book.bin");
+  // positions whose legal moves and status are kept, across all games
+  private static final int moveCacheEntries=1 << 16;
+  // written by TablebaseGenerator; endgames are searched like any other position without it
+  private static final Path tablebasePath=Path.of("tablebases");
+
   private static WebsocketGameInfo instance;
+  private final Tablebases tablebases=loadTablebases();
+  private final ParallelSearch analysis=new ParallelSearch(analysisThreads, analysisTableMegabytes, analysisQueueCapacity, tablebases);
+  // one mapping shared by every game
+  private final OpeningBook book=openBook();
+  private final MoveCache moveCache=new MoveCache(moveCacheEntries);
   private final GameService gameService;
   private final HashMap<String, Connection> connections=new HashMap<>();
   private final HashMap<Integer, HashSet<Connection>> games=new HashMap<>();
-  private final HashSet<Integer> finishedGames=new HashSet<>();
+  private final Set<Integer> finishedGames=ConcurrentHashMap.newKeySet();
+  // games being played, with the position history the database does not keep
+  private final ConcurrentHashMap<Integer, GameImple> liveGames=new ConcurrentHashMap<>();
+  // a live game is only read or played on while holding its lock; games share locks by ID, so none are ever made or dropped
+  private final Object[] gameLocks=new Object[64];
 
   private WebsocketGameInfo() {
     gameService=new GameService();
+    for (int index=0; index < gameLocks.length; ++index) gameLocks[index]=new Object();
+  }
+
+  private Object lockFor(int gameID) {
+    return gameLocks[Math.floorMod(gameID, gameLocks.length)];
+  }
+
+  private static OpeningBook openBook() {
+    if (!Files.exists(bookPath)) return null;
+    try {
+      return OpeningBook.open(bookPath);
+    } catch (IOException e) {
+      System.out.println("Opening book not loaded: " + e.getMessage());
+      return null;
+    }
+  }
+
+  private static Tablebases loadTablebases() {
+    if (!Files.isDirectory(tablebasePath)) return null;
+    try {
+      return Tablebases.load(tablebasePath);
+    } catch (IOException e) {
+      System.out.println("Tablebases not loaded: " + e.getMessage());
+      return null;
+    }
   }
 
   public static WebsocketGameInfo getInstance() {
@@ -40,6 +100,7 @@ public class WebsocketGameInfo {
     connections.clear();
     games.clear();
     finishedGames.clear();
+    liveGames.clear();
   }
 
   public void addConnection(Session session, AuthToken authToken, JoinPlayerMessage message) {
@@ -108,8 +169,13 @@ public class WebsocketGameInfo {
     }
 
     try {
-      game.game().makeMove(message.getMove());
-      gameService.updateGame(authToken, game);
+      synchronized (lockFor(game.gameID())) {
+        var live=liveGame(game);
+        live.makeMove(message.getMove());
+        // everything below reads a copy, so the live game is only touched under the lock
+        game=new Game(game.gameID(), game.whiteUsername(), game.blackUsername(), game.gameName(), GameImple.copyOf(live));
+        gameService.updateGame(authToken, game);
+      }
     } catch (InvalidMoveException | DataAccessException e) {
       sendMessage(new ErrorMessage("Error: " + e.getMessage()), new Connection(authToken, session, 0));
       return;
@@ -122,15 +188,53 @@ public class WebsocketGameInfo {
     broadcast(game.gameID(), moveMade, authToken.authToken());
 
     var g=game.game();
+    var playerToMove=g.getTeamTurn() == ChessGame.TeamColor.BLACK ? game.blackUsername() : game.whiteUsername();
+
+    switch (g.evaluateStatus(g.getTeamTurn())) {
+      case STALEMATE -> {
+        broadcast(game.gameID(), new NotificationMessage("The game is a stalemate!"));
+        finish(game.gameID());
+      }
+      case CHECKMATE -> {
+        broadcast(game.gameID(), new NotificationMessage(playerToMove + " has been checkmated!"));
+        finish(game.gameID());
+      }
+      case THREEFOLD_REPETITION -> {
+        broadcast(game.gameID(), new NotificationMessage("The game is a draw by threefold repetition!"));
+        finish(game.gameID());
+      }
+      case FIFTY_MOVE_RULE -> {
+        broadcast(game.gameID(), new NotificationMessage("The game is a draw by the fifty-move rule!"));
+        finish(game.gameID());
+      }
+      case CHECK -> broadcast(game.gameID(), new NotificationMessage(playerToMove + " is in check!"));
+    }
+  }
 
-    if (g.isInStalemate(g.getTeamTurn())) {
-      broadcast(game.gameID(), new NotificationMessage("The game is a stalemate!"));
-      finishedGames.add(game.gameID());
-    } else if (g.isInCheckmate(g.getTeamTurn())) {
-      broadcast(game.gameID(), new NotificationMessage((g.getTeamTurn() == ChessGame.TeamColor.BLACK ? game.blackUsername() : game.whiteUsername()) + " has been checkmated!"));
-      finishedGames.add(game.gameID());
-    } else if (g.isInCheck(g.getTeamTurn()))
-      broadcast(game.gameID(), new NotificationMessage((g.getTeamTurn() == ChessGame.TeamColor.BLACK ? game.blackUsername() : game.whiteUsername()) + " is in check!"));
+  // marks a game over and drops its live state, under the game's lock so an analysis cannot bring it back
+  private void finish(int gameID) {
+    synchronized (lockFor(gameID)) {
+      finishedGames.add(gameID);
+      liveGames.remove(gameID);
+    }
+  }
+
+  /**
+   * The game as played on this server, history, castling rights and en passant
+   * included. If the stored pieces no longer match (the server restarted, or
+   * the game was changed elsewhere) play carries on from the stored position,
+   * with the castling rights its placement allows. Call with the game's lock
+   * held.
+   */
+  private GameImple liveGame(Game game) {
+    var live=liveGames.get(game.gameID());
+    var stored=game.game();
+    if (live == null || live.getTeamTurn() != stored.getTeamTurn() || !live.getBoard().equals(stored.getBoard())) {
+      live=GameImple.copyOf(game.game());
+      live.setMoveCache(moveCache);
+      liveGames.put(game.gameID(), live);
+    }
+    return live;
   }
 
   public void leave(Session session, AuthToken authToken, LeaveMessage message) {
@@ -172,7 +276,67 @@ public class WebsocketGameInfo {
     connections.remove(authToken.authToken());
     games.get(message.getGameID()).remove(connection);
     if (session.isOpen()) session.close();
-    finishedGames.add(connection.gameID());
+    finish(connection.gameID());
+  }
+
+  public void analyze(Session session, AuthToken authToken, AnalyzeMessage message) {
+    var connection=getConnection(authToken);
+
+    if (connection == null) {
+      sendMessage(new ErrorMessage("Error: Cannot analyze if you are not in a game!"), new Connection(authToken, session, 0));
+      return;
+    }
+
+    // only the game this connection joined, like every other command
+    var game=getGame(authToken, connection.gameID());
+    if (game == null) {
+      sendMessage(new ErrorMessage("Error: no such game"), connection);
+      return;
+    }
+
+    // the live game has the history and castling rights the stored one lacks; a copy taken under its lock
+    // cannot catch a move half played. A finished game is answered from the stored one and gets no live state.
+    GameImple position;
+    synchronized (lockFor(game.gameID())) {
+      position=GameImple.copyOf(finishedGames.contains(game.gameID()) ? game.game() : liveGame(game));
+    }
+    if (tablebases != null) {
+      var known=tablebases.probe(position);
+      var move=known == null ? -1 : tablebases.bestMove(position);
+      if (move >= 0) {
+        sendMessage(new NotificationMessage("Tablebase move: " + PackedMove.toChessMove(move) + " (" + describe(known) + ")"), connection);
+        return;
+      }
+    }
+    if (book != null) {
+      var bookMove=book.pick(position, ThreadLocalRandom.current());
+      if (bookMove >= 0) {
+        sendMessage(new NotificationMessage("Book move: " + PackedMove.toChessMove(bookMove)), connection);
+        return;
+      }
+    }
+
+    // the search runs on the analysis threads and answers when it is done
+    try {
+      analysis.submit(position, SearchLimits.time(analysisMillis))
+              .thenAccept(result -> sendMessage(new NotificationMessage(describe(result)), connection));
+    } catch (RejectedExecutionException e) {
+      sendMessage(new ErrorMessage("Error: The engine is busy, try again later"), connection);
+    }
+  }
+
+  private static String describe(SearchResult result) {
+    if (result.bestMove() == null) return "There are no legal moves to analyze.";
+    return String.format("Engine suggests %s (score %+.2f, depth %d, %,.0f nodes/s)",
+            result.bestMove(), result.score() / 100.0, result.depth(), result.nodesPerSecond());
+  }
+
+  private static String describe(Tablebase.Probe probe) {
+    return switch (probe.outcome()) {
+      case WIN -> "mate in " + (probe.plies() + 1) / 2;
+      case DRAW -> "draw";
+      case LOSS -> "mated in " + probe.plies() / 2;
+    };
   }
 
   public void broadcast(int gameID, ServerMessage message, String excludedAuthToken) {
@@ -201,7 +365,10 @@ public class WebsocketGameInfo {
   public void sendMessage(ServerMessage message, Connection connection) {
     try {
       System.out.println("Message for " + connection.authToken().username() + ": " + message.toString());
-      connection.session().getRemote().sendString(toJson(message));
+      // analysis results are sent from the search threads, so sends to a session have to take turns
+      synchronized (connection.session()) {
+        connection.session().getRemote().sendString(toJson(message));
+      }
     } catch (IOException e) {
       System.out.println(e.getMessage());
     }
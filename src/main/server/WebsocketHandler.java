@@ -38,6 +38,7 @@ public class WebsocketHandler {
       case MAKE_MOVE -> gameInfo.makeMove(session, authToken, fromJson(message, MakeMoveMessage.class));
       case LEAVE -> gameInfo.leave(session, authToken, fromJson(message, LeaveMessage.class));
       case RESIGN -> gameInfo.resign(session, authToken, fromJson(message, ResignMessage.class));
+      case ANALYZE -> gameInfo.analyze(session, authToken, fromJson(message, AnalyzeMessage.class));
     }
   }
 
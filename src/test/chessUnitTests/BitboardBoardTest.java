@@ -0,0 +1,52 @@
+package chessUnitTests;
+
+import chess.BitboardBoard;
+import chess.BoardImple;
+import chess.ChessGame;
+import chess.ChessPiece;
+import chess.PieceImple;
+import chess.PositionImple;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BitboardBoardTest {
+
+  @Test
+  void resetMatchesBoardImple() {
+    var bitboard=new BitboardBoard();
+    var board=new BoardImple();
+    bitboard.resetBoard();
+    board.resetBoard();
+
+    assertEquals(board.serialize(), bitboard.serialize());
+    assertEquals(board.toString(), bitboard.toString());
+  }
+
+  @Test
+  void addPieceReplacesAndRemoves() {
+    var board=new BitboardBoard();
+    var pos=new PositionImple(3, 4);
+
+    board.addPiece(pos, new PieceImple(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.ROOK));
+    board.addPiece(pos, new PieceImple(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KNIGHT));
+
+    assertEquals(new PieceImple(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KNIGHT), board.getPiece(pos));
+
+    board.addPiece(pos, null);
+
+    assertNull(board.getPiece(pos));
+    assertEquals(new BitboardBoard(), board);
+  }
+
+  @Test
+  void deserializeRoundTrip() {
+    var board=new BitboardBoard();
+    board.resetBoard();
+
+    var copy=BitboardBoard.deserialize(board.serialize());
+
+    assertEquals(board, copy);
+    assertEquals(board.hashCode(), copy.hashCode());
+  }
+}
@@ -0,0 +1,69 @@
+package chessUnitTests;
+
+import chess.BitboardBoard;
+import chess.BoardImple;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Nested;
+import passoffTests.TestFactory;
+import passoffTests.chessTests.ChessBoardTests;
+import passoffTests.chessTests.ChessGameTests;
+import passoffTests.chessTests.chessExtraCredit.CastlingTests;
+import passoffTests.chessTests.chessExtraCredit.EnPassantTests;
+import passoffTests.chessTests.chessPieceTests.*;
+
+/**
+ * The passoff chess suites again, with every board a BitboardBoard
+ */
+class BitboardPassoffTest {
+
+  @BeforeAll
+  static void useBitboards() {
+    TestFactory.setBoards(BitboardBoard::new);
+  }
+
+  @AfterAll
+  static void restoreBoards() {
+    TestFactory.setBoards(BoardImple::new);
+  }
+
+  @Nested
+  class Board extends ChessBoardTests {
+  }
+
+  @Nested
+  class Game extends ChessGameTests {
+  }
+
+  @Nested
+  class Castling extends CastlingTests {
+  }
+
+  @Nested
+  class EnPassant extends EnPassantTests {
+  }
+
+  @Nested
+  class Bishop extends BishopMoveTests {
+  }
+
+  @Nested
+  class King extends KingMoveTests {
+  }
+
+  @Nested
+  class Knight extends KnightMoveTests {
+  }
+
+  @Nested
+  class Pawn extends PawnMoveTests {
+  }
+
+  @Nested
+  class Queen extends QueenMoveTests {
+  }
+
+  @Nested
+  class Rook extends RookMoveTests {
+  }
+}
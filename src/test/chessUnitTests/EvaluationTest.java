@@ -0,0 +1,57 @@
+package chessUnitTests;
+
+import chess.*;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EvaluationTest {
+
+  @Test
+  void startPositionIsEven() {
+    var game=new GameImple();
+    game.getBoard().resetBoard();
+
+    assertEquals(0, Evaluation.evaluate(game));
+  }
+
+  @Test
+  void incrementalScoreMatchesFreshBoard() {
+    var game=Fen.parse("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1").game();
+    var moves=new MoveList();
+
+    // walk down the first legal move a few plies: captures, castling and all
+    for (int ply=0; ply < 6; ++ply) {
+      moves.clear();
+      game.legalMoves(game.getTeamTurn(), moves);
+      game.makeMove(moves.get(ply % moves.size()));
+
+      var fresh=BoardImple.deserialize(game.serialize());
+      assertEquals(fresh.getPieceSquareScore(), game.getBoard().getPieceSquareScore());
+      assertEquals(fresh.getPieceSquareScore(), BitboardBoard.deserialize(game.serialize()).getPieceSquareScore());
+      assertEquals(Evaluation.evaluate(fresh), Evaluation.evaluate(game));
+    }
+  }
+
+  @Test
+  void mirroredPositionNegates() {
+    var game=Fen.parse("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1").game();
+    var mirrored=new GameImple();
+    for (int square=0; square < 64; ++square) {
+      var piece=game.getBoard().getPiece(PositionImple.of(square));
+      if (piece == null) continue;
+      var color=piece.getTeamColor() == ChessGame.TeamColor.WHITE ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+      mirrored.getBoard().addPiece(PositionImple.of(square ^ 56), PieceImple.of(color, piece.getPieceType()));
+    }
+
+    assertEquals(-Evaluation.evaluate(game), Evaluation.evaluate(mirrored));
+  }
+
+  @Test
+  void connectedPawnsBeatDoubledPawns() {
+    var doubled=Fen.parse("4k3/8/8/8/8/P7/P7/4K3 w - -").game();
+    var connected=Fen.parse("4k3/8/8/8/8/8/PP6/4K3 w - -").game();
+
+    assertTrue(Evaluation.evaluate(connected) > Evaluation.evaluate(doubled));
+  }
+}
@@ -0,0 +1,88 @@
+package chessUnitTests;
+
+import chess.*;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FenTest {
+
+  @Test
+  void startPositionMatchesResetBoard() {
+    var expected=new GameImple();
+    expected.getBoard().resetBoard();
+
+    var position=Fen.parse(Fen.startPosition);
+
+    assertEquals(expected, position.game());
+    assertEquals(0b1111, position.castlingRights());
+    assertEquals(-1, position.enPassantSquare());
+    assertEquals(Fen.startPosition, Fen.format(position));
+  }
+
+  @Test
+  void fieldsRoundTrip() {
+    var fen="r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R b Kq e3 12 34";
+
+    var position=Fen.parse(fen);
+
+    assertEquals(ChessGame.TeamColor.BLACK, position.game().getTeamTurn());
+    assertEquals(0b1001, position.castlingRights());
+    assertEquals(2 * 8 + 4, position.enPassantSquare());
+    assertEquals(12, position.halfmoveClock());
+    assertEquals(34, position.fullmoveNumber());
+    assertEquals(fen, Fen.format(position));
+  }
+
+  @Test
+  void enPassantSquareMatchesPlayedPosition() {
+    var played=new GameImple();
+    played.getBoard().resetBoard();
+    played.makeMove(PackedMove.of(12, 28));
+
+    // FEN writes e3 after 1. e4 though no black pawn can take it
+    var loaded=Fen.parse("rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq e3 0 1");
+    assertEquals(-1, loaded.game().getEnPassantSquare());
+    assertEquals(2 * 8 + 4, loaded.enPassantSquare());
+    assertEquals(played.getHash(), loaded.game().getHash());
+    assertEquals(played, loaded.game());
+
+    // 1. e4 a6 2. e5 d5, where exd6 is possible
+    for (var move : new int[]{PackedMove.of(48, 40), PackedMove.of(28, 36), PackedMove.of(51, 35)}) played.makeMove(move);
+    var capturable=Fen.parse("rnbqkbnr/1pp1pppp/p7/3pP3/8/8/PPPP1PPP/RNBQKBNR w KQkq d6 0 3").game();
+    assertEquals(5 * 8 + 3, capturable.getEnPassantSquare());
+    assertEquals(played.getHash(), capturable.getHash());
+  }
+
+  @Test
+  void parsesByteBufferSliceInPlace() {
+    var text="junk|8/8/8/4k3/8/8/4P3/4K3 w - -|junk";
+    var buffer=ByteBuffer.wrap(text.getBytes(StandardCharsets.US_ASCII), 5, text.lastIndexOf('|') - 5).slice();
+
+    var position=Fen.parse(buffer);
+
+    assertEquals(0, buffer.position());
+    assertEquals(ChessPiece.PieceType.PAWN, position.game().getBoard().getPiece(PositionImple.of(1, 4)).getPieceType());
+    assertEquals(0, position.castlingRights());
+    assertEquals(1, position.fullmoveNumber());
+  }
+
+  @Test
+  void matchesSerializedPerftPositions() {
+    var position=Fen.parse("8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1");
+
+    assertEquals(Perft.positions[1].board(), position.game().serialize());
+  }
+
+  @Test
+  void rejectsBadText() {
+    assertThrows(IllegalArgumentException.class, () -> Fen.parse("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP w KQkq - 0 1"));
+    assertThrows(IllegalArgumentException.class, () -> Fen.parse("rnbqkbnr/pppppppp/9/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1"));
+    assertThrows(IllegalArgumentException.class, () -> Fen.parse("8/8/8/8/8/8/8/8 x - - 0 1"));
+    assertThrows(IllegalArgumentException.class, () -> Fen.parse("8/8/8/8/8/8/8/8 w KX - 0 1"));
+    assertThrows(IllegalArgumentException.class, () -> Fen.parse("8/8/8/8/8/8/8/8 w - e4 0 1"));
+  }
+}
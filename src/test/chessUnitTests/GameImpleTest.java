@@ -0,0 +1,267 @@
+package chessUnitTests;
+
+import chess.*;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GameImpleTest {
+
+  @Test
+  void unmakeRestoresCapture() {
+    var game=new GameImple();
+    game.getBoard().resetBoard();
+    var start=game.serialize();
+
+    game.makeMove(PackedMove.of(12, 28));
+    game.makeMove(PackedMove.of(51, 35));
+    game.makeMove(PackedMove.of(28, 35));
+
+    assertEquals(ChessGame.TeamColor.BLACK, game.getTeamTurn());
+
+    game.unmakeMove();
+    game.unmakeMove();
+    game.unmakeMove();
+
+    assertEquals(start, game.serialize());
+    assertEquals(ChessGame.TeamColor.WHITE, game.getTeamTurn());
+  }
+
+  @Test
+  void unmakeRestoresPromotedPawn() {
+    var game=new GameImple();
+    var pawn=new PieceImple(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN);
+    game.getBoard().addPiece(new PositionImple(6, 0), pawn);
+
+    game.makeMove(PackedMove.of(48, 56, ChessPiece.PieceType.QUEEN));
+
+    assertEquals(ChessPiece.PieceType.QUEEN, game.getBoard().getPiece(new PositionImple(7, 0)).getPieceType());
+
+    game.unmakeMove();
+
+    assertSame(pawn, game.getBoard().getPiece(new PositionImple(6, 0)));
+    assertNull(game.getBoard().getPiece(new PositionImple(7, 0)));
+  }
+
+  @Test
+  void illegalMoveLeavesBoardUntouched() {
+    var game=new GameImple();
+    var board=game.getBoard();
+    board.addPiece(new PositionImple(0, 4), new PieceImple(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KING));
+    board.addPiece(new PositionImple(1, 4), new PieceImple(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.ROOK));
+    board.addPiece(new PositionImple(7, 4), new PieceImple(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.ROOK));
+    var before=game.serialize();
+
+    assertThrows(InvalidMoveException.class, () -> game.makeMove(new MoveImple(new PositionImple(1, 4), new PositionImple(1, 0))));
+
+    assertEquals(before, game.serialize());
+    assertEquals(ChessGame.TeamColor.WHITE, game.getTeamTurn());
+  }
+
+  @Test
+  void evaluateStatusAfterFoolsMate() {
+    var game=new GameImple();
+    game.getBoard().resetBoard();
+
+    assertEquals(ChessGame.GameStatus.NORMAL, game.evaluateStatus(ChessGame.TeamColor.WHITE));
+
+    game.makeMove(PackedMove.of(13, 21));
+    game.makeMove(PackedMove.of(52, 36));
+    game.makeMove(PackedMove.of(14, 30));
+    game.makeMove(PackedMove.of(59, 31));
+
+    assertEquals(ChessGame.GameStatus.CHECKMATE, game.evaluateStatus(ChessGame.TeamColor.WHITE));
+    assertEquals(ChessGame.GameStatus.NORMAL, game.evaluateStatus(ChessGame.TeamColor.BLACK));
+  }
+
+  @Test
+  void evaluateStatusStalemate() {
+    var game=new GameImple();
+    var board=game.getBoard();
+    board.addPiece(new PositionImple(7, 7), new PieceImple(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KING));
+    board.addPiece(new PositionImple(5, 6), new PieceImple(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.QUEEN));
+    board.addPiece(new PositionImple(0, 0), new PieceImple(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KING));
+
+    assertEquals(ChessGame.GameStatus.STALEMATE, game.evaluateStatus(ChessGame.TeamColor.BLACK));
+  }
+
+  @Test
+  void allLegalMovesMatchesValidMoves() {
+    var game=GameImple.deserialize(Perft.positions[1].board(), Perft.positions[1].turn());
+
+    var perPiece=new HashSet<ChessMove>();
+    for (int square=0; square < 64; ++square) {
+      var pos=PositionImple.of(square);
+      var piece=game.getBoard().getPiece(pos);
+      if (piece != null && piece.getTeamColor() == ChessGame.TeamColor.WHITE) perPiece.addAll(game.validMoves(pos));
+    }
+
+    assertEquals(perPiece, game.allLegalMoves(ChessGame.TeamColor.WHITE));
+    assertEquals(14, perPiece.size());
+  }
+
+  @Test
+  void legalMoveListSlicesMatchValidMoves() {
+    // kiwipete with white to move, then a check black has to answer
+    for (var fen : new String[]{"r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1", "4k3/8/8/1B6/8/8/8/4K3 b - - 0 1"}) {
+      var game=Fen.parse(fen).game();
+      var list=game.allLegalMoves();
+
+      var total=0;
+      for (int square=0; square < 64; ++square) {
+        var pos=PositionImple.of(square);
+        var piece=game.getBoard().getPiece(pos);
+        if (piece == null || piece.getTeamColor() != game.getTeamTurn()) {
+          assertEquals(0, list.count(square));
+          continue;
+        }
+        var expected=game.validMoves(pos);
+        assertEquals(expected, new HashSet<>(list.movesFrom(pos)));
+        long targets=0;
+        for (var move : expected) {
+          assertTrue(list.contains(move));
+          targets|=1L << move.getEndPosition().getRow() * 8 + move.getEndPosition().getColumn();
+        }
+        assertEquals(targets, list.targets(square));
+        total+=list.count(square);
+      }
+      assertEquals(list.size(), total);
+      assertEquals(game.allLegalMoves(game.getTeamTurn()).size(), list.size());
+    }
+  }
+
+  @Test
+  void knightShuffleIsThreefoldRepetition() {
+    var game=new GameImple();
+    game.getBoard().resetBoard();
+
+    // Nf3 Nf6 Ng1 Ng8, twice, returns to the start position for the third time
+    for (int round=0; round < 2; ++round) {
+      assertEquals(ChessGame.GameStatus.NORMAL, game.evaluateStatus(game.getTeamTurn()));
+      game.makeMove(PackedMove.of(6, 21));
+      game.makeMove(PackedMove.of(62, 45));
+      game.makeMove(PackedMove.of(21, 6));
+      game.makeMove(PackedMove.of(45, 62));
+    }
+
+    assertEquals(3, game.repetitionCount());
+    assertEquals(ChessGame.GameStatus.THREEFOLD_REPETITION, game.evaluateStatus(game.getTeamTurn()));
+
+    game.unmakeMove();
+    assertEquals(2, game.repetitionCount());
+    assertEquals(ChessGame.GameStatus.NORMAL, game.evaluateStatus(game.getTeamTurn()));
+  }
+
+  @Test
+  void pawnMoveResetsRepetitionsAndClock() {
+    var game=new GameImple();
+    game.getBoard().resetBoard();
+
+    game.makeMove(PackedMove.of(6, 21));
+    game.makeMove(PackedMove.of(62, 45));
+    assertEquals(2, game.getHalfmoveClock());
+
+    game.makeMove(PackedMove.of(12, 28));
+    assertEquals(0, game.getHalfmoveClock());
+    assertEquals(2, game.getFullmoveNumber());
+
+    game.unmakeMove();
+    assertEquals(2, game.getHalfmoveClock());
+    assertEquals(2, game.getFullmoveNumber());
+    game.unmakeMove();
+    assertEquals(1, game.getFullmoveNumber());
+  }
+
+  @Test
+  void fiftyMoveRuleEndsTheGame() {
+    var position=Fen.parse("8/8/8/4k3/8/8/8/R3K3 w - - 99 80");
+    var game=position.game();
+
+    assertEquals(ChessGame.GameStatus.NORMAL, game.evaluateStatus(game.getTeamTurn()));
+
+    game.makeMove(PackedMove.of(0, 1));
+
+    assertEquals(ChessGame.GameStatus.FIFTY_MOVE_RULE, game.evaluateStatus(game.getTeamTurn()));
+    assertEquals(ChessGame.GameStatus.FIFTY_MOVE_RULE, GameImple.copyOf(game).evaluateStatus(game.getTeamTurn()));
+  }
+
+  @Test
+  void castlingMovesRookAndUnmakeRestoresRights() {
+    var game=Fen.parse("r3k2r/8/8/8/8/8/8/R3K2R w KQkq - 0 1").game();
+    var start=game.getHash();
+
+    game.makeMove(PackedMove.of(4, 6));
+
+    assertEquals(PieceImple.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.ROOK), game.getBoard().getPiece(PositionImple.of(5)));
+    assertNull(game.getBoard().getPiece(PositionImple.of(7)));
+    assertEquals(GameImple.blackKingside | GameImple.blackQueenside, game.getCastlingRights());
+
+    game.unmakeMove();
+
+    assertEquals(PieceImple.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.ROOK), game.getBoard().getPiece(PositionImple.of(7)));
+    assertNull(game.getBoard().getPiece(PositionImple.of(5)));
+    assertEquals(GameImple.allCastling, game.getCastlingRights());
+    assertEquals(start, game.getHash());
+  }
+
+  @Test
+  void enPassantCaptureAndUnmake() {
+    var game=new GameImple();
+    game.getBoard().resetBoard();
+    game.makeMove(PackedMove.of(12, 28));
+    // nothing can take e4 en passant, so no square is kept
+    assertEquals(-1, game.getEnPassantSquare());
+    game.makeMove(PackedMove.of(48, 40));
+    game.makeMove(PackedMove.of(28, 36));
+    game.makeMove(PackedMove.of(51, 35));
+    assertEquals(43, game.getEnPassantSquare());
+    var before=game.serialize();
+    var hash=game.getHash();
+
+    game.makeMove(PackedMove.of(36, 43));
+
+    assertNull(game.getBoard().getPiece(PositionImple.of(35)));
+    assertEquals(-1, game.getEnPassantSquare());
+
+    game.unmakeMove();
+
+    assertEquals(before, game.serialize());
+    assertEquals(43, game.getEnPassantSquare());
+    assertEquals(hash, game.getHash());
+  }
+
+  @Test
+  void enPassantLegalityLeavesBoardAlone() {
+    // taking c6 would open the fifth rank to the rook
+    var pinned=Fen.parse("8/8/8/KPp4r/8/8/8/7k w - c6 0 1").game();
+    var before=pinned.serialize();
+    var moves=new MoveList();
+    pinned.legalMoves(ChessGame.TeamColor.WHITE, moves);
+    assertFalse(moves.contains(PackedMove.of(33, 42)));
+    assertEquals(before, pinned.serialize());
+
+    // the pawn giving check can be taken en passant
+    var checked=Fen.parse("8/8/8/2k5/3Pp3/8/8/4K3 b - d3 0 1").game();
+    moves.clear();
+    checked.legalMoves(ChessGame.TeamColor.BLACK, moves);
+    assertTrue(moves.contains(PackedMove.of(28, 19)));
+  }
+
+  @Test
+  void lostCastlingRightChangesHash() {
+    var game=Fen.parse("r3k2r/8/8/8/8/8/8/R3K2R w KQkq - 0 1").game();
+    var start=game.getHash();
+
+    // the rook goes out and back, so the pieces match but the right is gone
+    game.makeMove(PackedMove.of(7, 15));
+    game.makeMove(PackedMove.of(56, 48));
+    game.makeMove(PackedMove.of(15, 7));
+    game.makeMove(PackedMove.of(48, 56));
+
+    assertNotEquals(start, game.getHash());
+    assertNotEquals(Fen.parse("r3k2r/8/8/8/8/8/8/R3K2R w KQkq - 0 1").game(), game);
+    assertEquals("r3k2r/8/8/8/8/8/8/R3K2R w Qk - 4 3", Fen.format(game));
+  }
+}
@@ -0,0 +1,131 @@
+package chessUnitTests;
+
+import chess.*;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MoveCacheTest {
+
+  private static GameImple startWith(MoveCache cache) {
+    var game=new GameImple();
+    game.getBoard().resetBoard();
+    game.setMoveCache(cache);
+    return game;
+  }
+
+  @Test
+  void gamesShareEntries() {
+    var cache=new MoveCache(1024);
+    var first=startWith(cache);
+    var second=startWith(cache);
+
+    assertEquals(20, first.allLegalMoves().size());
+    assertEquals(20, second.allLegalMoves().size());
+    assertEquals(ChessGame.GameStatus.NORMAL, second.evaluateStatus(ChessGame.TeamColor.WHITE));
+
+    assertEquals(1, cache.misses());
+    assertEquals(2, cache.hits());
+  }
+
+  @Test
+  void movesAndStatusMatchUncachedGame() throws InvalidMoveException {
+    var cache=new MoveCache(1024);
+    var cached=startWith(cache);
+    var plain=new GameImple();
+    plain.getBoard().resetBoard();
+
+    // fool's mate
+    for (var move : new int[]{PackedMove.of(13, 21), PackedMove.of(52, 36), PackedMove.of(14, 30), PackedMove.of(59, 31)}) {
+      cached.makeMove(PackedMove.toChessMove(move));
+      plain.makeMove(PackedMove.toChessMove(move));
+      assertEquals(plain.evaluateStatus(plain.getTeamTurn()), cached.evaluateStatus(cached.getTeamTurn()));
+    }
+
+    assertEquals(ChessGame.GameStatus.CHECKMATE, cached.evaluateStatus(ChessGame.TeamColor.WHITE));
+    assertTrue(cached.allLegalMoves().isEmpty());
+    assertTrue(cache.hits() > 0);
+  }
+
+  @Test
+  void rejectedMovesKeepTheirMessages() throws InvalidMoveException {
+    var game=startWith(new MoveCache(1024));
+    game.makeMove(PackedMove.toChessMove(PackedMove.of(12, 28)));
+    game.makeMove(PackedMove.toChessMove(PackedMove.of(51, 35)));
+    game.makeMove(PackedMove.toChessMove(PackedMove.of(5, 33)));
+
+    // 1. e4 d5 2. Bb5+: moves that ignore the check are not in the cached list either
+    var exception=assertThrows(InvalidMoveException.class, () -> game.makeMove(PackedMove.toChessMove(PackedMove.of(48, 40))));
+    assertEquals("Move would result in check!", exception.getMessage());
+    exception=assertThrows(InvalidMoveException.class, () -> game.makeMove(PackedMove.toChessMove(PackedMove.of(48, 32))));
+    assertEquals("Move would result in check!", exception.getMessage());
+    exception=assertThrows(InvalidMoveException.class, () -> game.makeMove(PackedMove.toChessMove(PackedMove.of(57, 40))));
+    assertEquals("Move would result in check!", exception.getMessage());
+    exception=assertThrows(InvalidMoveException.class, () -> game.makeMove(PackedMove.toChessMove(PackedMove.of(56, 40))));
+    assertEquals("Not a valid move!", exception.getMessage());
+  }
+
+  @Test
+  void repetitionIsNotCached() throws InvalidMoveException {
+    var game=startWith(new MoveCache(1024));
+    var shuffle=new int[]{PackedMove.of(6, 21), PackedMove.of(62, 45), PackedMove.of(21, 6), PackedMove.of(45, 62)};
+    for (int round=0; round < 2; ++round) {
+      for (var move : shuffle) game.makeMove(PackedMove.toChessMove(move));
+    }
+
+    assertEquals(ChessGame.GameStatus.THREEFOLD_REPETITION, game.evaluateStatus(ChessGame.TeamColor.WHITE));
+    var fresh=startWith(game.getMoveCache());
+    assertEquals(ChessGame.GameStatus.NORMAL, fresh.evaluateStatus(ChessGame.TeamColor.WHITE));
+  }
+
+  @Test
+  void newPositionEvictsOld() {
+    var cache=new MoveCache(1);
+    var game=startWith(cache);
+    game.allLegalMoves();
+    game.makeMove(PackedMove.of(12, 28));
+    game.allLegalMoves();
+    game.unmakeMove();
+    game.allLegalMoves();
+
+    assertEquals(1, cache.capacity());
+    assertEquals(0, cache.hits());
+    assertEquals(3, cache.misses());
+  }
+
+  @Test
+  void sharedAcrossThreads() throws InterruptedException, ExecutionException {
+    var cache=new MoveCache(64);
+    var positions=new String[]{
+            "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+            "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+            "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1"};
+    var expected=new int[positions.length];
+    for (int index=0; index < positions.length; ++index) expected[index]=Fen.parse(positions[index]).game().allLegalMoves().size();
+
+    var tasks=new ArrayList<Callable<Boolean>>();
+    for (int thread=0; thread < 4; ++thread) {
+      tasks.add(() -> {
+        for (int round=0; round < 200; ++round) {
+          var index=round % positions.length;
+          var game=Fen.parse(positions[index]).game();
+          game.setMoveCache(cache);
+          if (game.allLegalMoves().size() != expected[index]) return false;
+        }
+        return true;
+      });
+    }
+    var executor=Executors.newFixedThreadPool(4);
+    try {
+      for (var result : executor.invokeAll(tasks)) assertTrue(result.get());
+    } finally {
+      executor.shutdown();
+    }
+    assertEquals(800, cache.hits() + cache.misses());
+  }
+}
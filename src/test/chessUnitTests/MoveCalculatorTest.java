@@ -0,0 +1,79 @@
+package chessUnitTests;
+
+import chess.*;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MoveCalculatorTest {
+
+  @Test
+  void packedMovesMatchCollection() {
+    var board=new BoardImple();
+    board.resetBoard();
+    var buffer=new MoveList();
+
+    for (int square=0; square < 64; ++square) {
+      var pos=new PositionImple(square / 8, square % 8);
+      var piece=board.getPiece(pos);
+      if (piece == null) continue;
+
+      buffer.clear();
+      MoveCalculator.getMoves(board, square, piece, buffer);
+      var moves=MoveCalculator.getMoves(board, pos, piece);
+
+      assertEquals(moves.size(), buffer.size());
+      for (int index=0; index < buffer.size(); ++index) {
+        assertTrue(moves.contains(PackedMove.toChessMove(buffer.get(index))));
+      }
+    }
+  }
+
+  @Test
+  void packedPromotionRoundTrip() {
+    var move=new MoveImple(new PositionImple(6, 2), new PositionImple(7, 3), ChessPiece.PieceType.KNIGHT);
+
+    var packed=PackedMove.of(move);
+
+    assertEquals(50, PackedMove.from(packed));
+    assertEquals(59, PackedMove.to(packed));
+    assertEquals(ChessPiece.PieceType.KNIGHT, PackedMove.promotion(packed));
+    assertEquals(move, PackedMove.toChessMove(packed));
+  }
+
+  @Test
+  void pawnPromotesOnLastRow() {
+    var board=new BoardImple();
+    board.addPiece(new PositionImple(6, 0), new PieceImple(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN));
+    var buffer=new MoveList();
+
+    MoveCalculator.getMoves(board, 48, board.getPiece(new PositionImple(6, 0)), buffer);
+
+    assertEquals(4, buffer.size());
+  }
+
+  @Test
+  void attackProbesMatchGeneratedCaptures() {
+    for (var position : Perft.positions) {
+      var board=BoardImple.deserialize(position.board());
+
+      for (var attacker : ChessGame.TeamColor.values()) {
+        var captures=new MoveList();
+        for (int square=0; square < 64; ++square) {
+          var piece=board.getPiece(new PositionImple(square / 8, square % 8));
+          if (piece != null && piece.getTeamColor() == attacker) MoveCalculator.getMoves(board, square, piece, captures);
+        }
+
+        // every occupied enemy square is attacked exactly when some generated move lands on it
+        for (int square=0; square < 64; ++square) {
+          var piece=board.getPiece(new PositionImple(square / 8, square % 8));
+          if (piece == null || piece.getTeamColor() == attacker) continue;
+          var generated=false;
+          for (int index=0; index < captures.size(); ++index) generated|=PackedMove.to(captures.get(index)) == square;
+
+          assertEquals(generated, MoveCalculator.isSquareAttacked(board, square, attacker), position.name() + " square " + square);
+        }
+      }
+    }
+  }
+}
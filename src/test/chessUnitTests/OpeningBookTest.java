@@ -0,0 +1,91 @@
+package chessUnitTests;
+
+import chess.*;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OpeningBookTest {
+  private static final String pgn="""
+          [Result "1-0"]
+          1. e4 e5 2. Nf3 Nc6 3. Bb5 1-0
+
+          [Result "1/2-1/2"]
+          1. e4 c5 2. Nf3 d6 1/2-1/2
+
+          [Result "0-1"]
+          1. d4 d5 2. c4 e6 0-1
+
+          [Result "1-0"]
+          1. e4 e5 2. Nf3 Nf6 1-0
+          """;
+
+  private static OpeningBook build(int maxPlies) throws IOException {
+    var builder=new OpeningBookBuilder(maxPlies);
+    builder.addAll(new PgnReader(new ByteArrayInputStream(pgn.getBytes(StandardCharsets.US_ASCII))));
+    var file=Files.createTempFile("book", ".bin");
+    // a mapped file cannot be deleted everywhere while the mapping is alive
+    file.toFile().deleteOnExit();
+    builder.write(file);
+    return OpeningBook.open(file);
+  }
+
+  @Test
+  void weightsFollowResults() throws IOException {
+    var book=build(4);
+    var start=new GameImple();
+    start.getBoard().resetBoard();
+
+    var moves=book.moves(start);
+
+    // e4: two wins and a draw; d4 only lost, so it is left out
+    assertEquals(1, moves.size());
+    assertEquals(PackedMove.of(12, 28), moves.get(0).move());
+    assertEquals(5, moves.get(0).weight());
+  }
+
+  @Test
+  void pickFollowsTheGames() throws IOException {
+    var book=build(4);
+    var game=new GameImple();
+    game.getBoard().resetBoard();
+    game.makeMove(PackedMove.of(12, 28));
+
+    var random=new Random(7);
+    for (int draw=0; draw < 20; ++draw) {
+      var move=book.pick(game, random);
+      assertTrue(move == PackedMove.of(52, 36) || move == PackedMove.of(50, 34), "unexpected book move " + move);
+    }
+  }
+
+  @Test
+  void unknownPositionsAndPliesPastTheLimit() throws IOException {
+    var book=build(2);
+    var game=new GameImple();
+    game.getBoard().resetBoard();
+    game.makeMove(PackedMove.of(12, 28));
+    game.makeMove(PackedMove.of(52, 36));
+
+    // the third ply was past the limit
+    assertEquals(-1, book.pick(game, new Random()));
+    assertTrue(book.moves(new GameImple()).isEmpty());
+    assertEquals(3, book.entryCount());
+  }
+
+  @Test
+  void rejectsOtherFiles() throws IOException {
+    var file=Files.createTempFile("book", ".bin");
+    try {
+      Files.writeString(file, "not a book at all");
+      assertThrows(IOException.class, () -> OpeningBook.open(file));
+    } finally {
+      Files.delete(file);
+    }
+  }
+}
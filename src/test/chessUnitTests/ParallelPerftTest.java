@@ -0,0 +1,52 @@
+package chessUnitTests;
+
+import chess.*;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParallelPerftTest {
+
+  @Test
+  void matchesKnownNodeCounts() {
+    var pool=new ForkJoinPool(4);
+    var perft=new ParallelPerft(pool);
+    for (var position : Perft.positions) {
+      var game=GameImple.deserialize(position.board(), position.turn());
+      var depth=Math.min(position.counts().length, 5);
+
+      assertEquals(position.counts()[depth - 1], perft.count(game, depth), position.name() + " at depth " + depth);
+      assertEquals(position.board(), game.serialize(), "perft left " + position.name() + " modified");
+    }
+    pool.shutdown();
+  }
+
+  @Test
+  void divideHasOneEntryPerRootMove() {
+    var game=new GameImple();
+    game.getBoard().resetBoard();
+    var pool=new ForkJoinPool(2);
+
+    var divide=new ParallelPerft(pool).divide(game, 3);
+
+    assertEquals(20, divide.size());
+    assertEquals(8902, divide.stream().mapToLong(ParallelPerft.RootCount::nodes).sum());
+    for (var root : divide) assertTrue(game.validMoves(root.move().getStartPosition()).contains(root.move()));
+    pool.shutdown();
+  }
+
+  @Test
+  void rejectsDepthBelowOne() {
+    var game=new GameImple();
+    game.getBoard().resetBoard();
+    var perft=new ParallelPerft(ForkJoinPool.commonPool());
+
+    assertThrows(IllegalArgumentException.class, () -> perft.divide(game, 0));
+    assertThrows(IllegalArgumentException.class, () -> perft.count(game, -1));
+    assertThrows(IllegalArgumentException.class, () -> new Perft(game, 3).count(0));
+    assertThrows(IllegalArgumentException.class, () -> new Perft(game, 3).count(4));
+    assertEquals(20, perft.count(game, 1));
+  }
+}
@@ -0,0 +1,55 @@
+package chessUnitTests;
+
+import chess.*;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParallelSearchTest {
+
+  @Test
+  void helpersFindSameMate() {
+    var squares=".".repeat(64).toCharArray();
+    squares[0]='R';
+    squares[6]='K';
+    squares[62]='k';
+    squares[53]=squares[54]=squares[55]='p';
+    var game=GameImple.deserialize(new String(squares), ChessGame.TeamColor.WHITE);
+
+    try (var search=new ParallelSearch(4, 4, 2)) {
+      var result=search.search(game, SearchLimits.depth(4));
+
+      assertEquals(new MoveImple(PositionImple.of(0, 0), PositionImple.of(7, 0), null), result.bestMove());
+      assertTrue(result.isMate());
+      assertTrue(result.nodesPerSecond() > 0);
+    }
+  }
+
+  @Test
+  void timeLimitStopsAllThreads() {
+    var game=new GameImple();
+    game.getBoard().resetBoard();
+
+    try (var search=new ParallelSearch(3, 4, 2)) {
+      var result=search.search(game, SearchLimits.time(200));
+
+      assertNotNull(result.bestMove());
+      assertTrue(result.elapsedNanos() < 2_000_000_000L, "took " + result.elapsedNanos() + "ns");
+    }
+  }
+
+  @Test
+  void fullQueueRejectsSearches() {
+    var game=new GameImple();
+    game.getBoard().resetBoard();
+
+    try (var search=new ParallelSearch(1, 1, 1)) {
+      // one search runs and one waits, so the third has nowhere to go
+      assertThrows(RejectedExecutionException.class, () -> {
+        for (int request=0; request < 3; ++request) search.submit(game, SearchLimits.time(500));
+      });
+    }
+  }
+}
@@ -0,0 +1,32 @@
+package chessUnitTests;
+
+import chess.GameImple;
+import chess.Perft;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PerftTest {
+
+  @Test
+  void knownNodeCounts() {
+    for (var position : Perft.positions) {
+      var counts=position.counts();
+      var game=GameImple.deserialize(position.board(), position.turn());
+      var perft=new Perft(game, counts.length);
+
+      for (int depth=1; depth <= counts.length; ++depth) {
+        assertEquals(counts[depth - 1], perft.count(depth), position.name() + " at depth " + depth);
+      }
+      assertEquals(position.board(), game.serialize(), "perft left " + position.name() + " modified");
+    }
+  }
+
+  @Test
+  void startingPositionFromResetBoard() {
+    var game=new GameImple();
+    game.getBoard().resetBoard();
+
+    assertEquals(8902, new Perft(game, 3).count(3));
+  }
+}
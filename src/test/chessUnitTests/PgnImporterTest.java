@@ -0,0 +1,100 @@
+package chessUnitTests;
+
+import chess.*;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PgnImporterTest {
+  private static final String pgn="""
+          [Event "Fool's mate"]
+          [White "Someone \\"quoted\\""]
+
+          1. f3 e5 2. g4 Qh4# 0-1
+
+          [Event "Commented"]
+          [Result "1/2-1/2"]
+
+          1. e4 {best by test} e5 (1... c5 2. Nf3 (2. c3) d6) 2. Nf3 $1 Nc6 3.Bb5 a6
+          ; a line comment
+          4. Bxc6 dxc6 5. d4 exd4 6. Qxd4 Qxd4 7. Nxd4 1/2-1/2
+
+          [Event "Illegal"]
+
+          1. e4 e5 2. Ke3 *
+
+          [Event "From FEN"]
+          [FEN "8/4P3/8/8/8/8/k7/4K3 w - - 0 1"]
+
+          1. e8=Q+ Kb3 2. Qb5+ *
+          """;
+
+  @Test
+  void sanResolvesDisambiguationAndPromotion() {
+    var game=Fen.parse("4k3/1P6/8/8/8/8/8/1N2KN2 w - - 0 1").game();
+    var moves=new MoveList();
+
+    assertEquals(PackedMove.of(5, 11), San.resolve(game, "Nfd2", moves));
+    assertEquals(PackedMove.of(1, 11), San.resolve(game, "Nbd2", moves));
+    assertEquals(-1, San.resolve(game, "Nd2", moves));
+    assertEquals(PackedMove.of(49, 57, ChessPiece.PieceType.KNIGHT), San.resolve(game, "b8=N+", moves));
+    assertEquals(PackedMove.of(49, 57, ChessPiece.PieceType.QUEEN), San.resolve(game, "b8Q", moves));
+    assertEquals(-1, San.resolve(game, "b8", moves));
+    assertEquals(-1, San.resolve(game, "Qd1", moves));
+  }
+
+  @Test
+  void readerSkipsCommentsAndVariations() throws IOException {
+    try (var reader=new PgnReader(new ByteArrayInputStream(pgn.getBytes(StandardCharsets.US_ASCII)))) {
+      var first=reader.next();
+      assertEquals("Someone \"quoted\"", first.tag("White"));
+      assertEquals(4, first.moveCount());
+      assertEquals("Qh4#", first.move(3).toString());
+      assertEquals("0-1", first.result());
+
+      var second=reader.next();
+      assertEquals(13, second.moveCount());
+      assertEquals("Bb5", second.move(4).toString());
+      assertEquals("1/2-1/2", second.result());
+
+      assertEquals("Illegal", reader.next().tag("Event"));
+      assertEquals(3, reader.next().moveCount());
+      assertNull(reader.next());
+    }
+  }
+
+  @Test
+  void importsMappedFileOnWorkers() throws IOException {
+    var file=Files.createTempFile("games", ".pgn");
+    try {
+      Files.writeString(file, pgn.repeat(50));
+      var results=new ConcurrentHashMap<String, PgnImporter.ReplayedGame>();
+      var importer=new PgnImporter(3, game -> results.put(game.game().tag("Event"), game));
+
+      PgnImporter.ImportStats stats;
+      try (var reader=PgnReader.open(file)) {
+        stats=importer.importGames(reader);
+      }
+
+      assertEquals(200, stats.games());
+      assertEquals(50, stats.invalid());
+      assertTrue(stats.gamesPerSecond() > 0);
+
+      var foolsMate=results.get("Fool's mate");
+      assertTrue(foolsMate.isValid());
+      assertTrue(foolsMate.position().isInCheckmate(ChessGame.TeamColor.WHITE));
+      assertEquals(13, results.get("Commented").plies());
+      assertFalse(results.get("Illegal").isValid());
+      assertEquals(2, results.get("Illegal").plies());
+      assertTrue(results.get("From FEN").isValid(), results.get("From FEN").error());
+    } finally {
+      Files.delete(file);
+    }
+  }
+}
@@ -0,0 +1,88 @@
+package chessUnitTests;
+
+import chess.*;
+import org.junit.jupiter.api.Test;
+import webSocketMessages.serverMessages.LoadGameMessage;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PositionCodecTest {
+
+  @Test
+  void startingPositionRoundTrips() {
+    var game=new GameImple();
+    game.getBoard().resetBoard();
+
+    var bytes=PositionCodec.encode(game);
+    var decoded=PositionCodec.decode(bytes);
+
+    assertEquals(PositionCodec.maxBytes, bytes.length);
+    assertEquals(game, decoded);
+    assertEquals(game.serialize(), decoded.serialize());
+  }
+
+  @Test
+  void sideToMoveAndOddPieceCountRoundTrip() {
+    var game=GameImple.deserialize(Perft.positions[1].board(), ChessGame.TeamColor.BLACK);
+    game.getBoard().addPiece(PositionImple.of(1, 4), null);
+    assertEquals(1, Long.bitCount(game.getBoard().getOccupancy()) % 2);
+
+    var decoded=PositionCodec.decode(PositionCodec.encode(game));
+
+    assertEquals(ChessGame.TeamColor.BLACK, decoded.getTeamTurn());
+    assertEquals(game.serialize(), decoded.serialize());
+  }
+
+  @Test
+  void bitboardBoardEncodesTheSame() {
+    var game=new GameImple();
+    game.getBoard().resetBoard();
+    var bitboardGame=new GameImple();
+    var board=new BitboardBoard();
+    board.resetBoard();
+    bitboardGame.setBoard(board);
+
+    assertArrayEquals(PositionCodec.encode(game), PositionCodec.encode(bitboardGame));
+    var decoded=PositionCodec.decodeBoard(PositionCodec.encode(game), new BitboardBoard());
+    assertEquals(board, decoded);
+  }
+
+  @Test
+  void positionsCanBePackedBackToBack() {
+    var first=new GameImple();
+    first.getBoard().resetBoard();
+    var second=GameImple.deserialize(Perft.positions[2].board(), Perft.positions[2].turn());
+
+    var buffer=ByteBuffer.allocate(2 * PositionCodec.maxBytes);
+    PositionCodec.encode(first, buffer);
+    PositionCodec.encode(second, buffer);
+    buffer.flip();
+
+    assertEquals(first, PositionCodec.decode(buffer));
+    assertEquals(second, PositionCodec.decode(buffer));
+    assertFalse(buffer.hasRemaining());
+  }
+
+  @Test
+  void loadGameMessageCarriesPosition() {
+    var game=GameImple.deserialize(Perft.positions[2].board(), ChessGame.TeamColor.BLACK);
+
+    var message=new LoadGameMessage(game);
+
+    assertEquals(game, message.getGame());
+  }
+
+  @Test
+  void castlingAndEnPassantRoundTrip() {
+    var game=Fen.parse("rnbqkbnr/ppp1p1pp/8/3pPp2/8/8/PPPP1PPP/RNBQKBNR w Kq f6 0 3").game();
+
+    var decoded=PositionCodec.decode(PositionCodec.encode(game));
+
+    assertEquals(GameImple.whiteKingside | GameImple.blackQueenside, decoded.getCastlingRights());
+    assertEquals(5 * 8 + 5, decoded.getEnPassantSquare());
+    assertEquals(game, decoded);
+    assertEquals(game.getHash(), decoded.getHash());
+  }
+}
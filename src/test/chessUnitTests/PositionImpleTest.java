@@ -0,0 +1,44 @@
+package chessUnitTests;
+
+import chess.*;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PositionImpleTest {
+
+  @Test
+  void sharedInstancesEqualNewOnes() {
+    assertSame(PositionImple.of(3, 5), PositionImple.of(29));
+    assertEquals(new PositionImple(3, 5), PositionImple.of(3, 5));
+    assertEquals(new PositionImple(3, 5).hashCode(), PositionImple.of(3, 5).hashCode());
+  }
+
+  @Test
+  void hashCodesAreUnique() {
+    var hashes=new HashSet<Integer>();
+    for (int row=0; row < 8; ++row) {
+      for (int col=0; col < 8; ++col) hashes.add(new PositionImple(row, col).hashCode());
+    }
+
+    assertEquals(64, hashes.size());
+  }
+
+  @Test
+  void offBoardPositionsStillWork() {
+    assertEquals(new PositionImple(-1, 2), PositionImple.of(-1, 2));
+  }
+
+  @Test
+  void deserializedBoardsSharePieces() {
+    var board=new BoardImple();
+    board.resetBoard();
+
+    var copy=BoardImple.deserialize(board.serialize());
+
+    assertSame(PieceImple.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN), copy.getPiece(PositionImple.of(1, 0)));
+    assertSame(copy.getPiece(PositionImple.of(6, 0)), copy.getPiece(PositionImple.of(6, 7)));
+  }
+}
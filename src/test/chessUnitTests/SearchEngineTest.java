@@ -0,0 +1,70 @@
+package chessUnitTests;
+
+import chess.*;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SearchEngineTest {
+
+  @Test
+  void findsBackRankMate() {
+    var squares=".".repeat(64).toCharArray();
+    squares[0]='R';
+    squares[6]='K';
+    squares[62]='k';
+    squares[53]=squares[54]=squares[55]='p';
+    var game=GameImple.deserialize(new String(squares), ChessGame.TeamColor.WHITE);
+
+    var result=new SearchEngine().search(game, SearchLimits.depth(3));
+
+    assertEquals(new MoveImple(PositionImple.of(0, 0), PositionImple.of(7, 0), null), result.bestMove());
+    assertTrue(result.isMate());
+    assertTrue(result.score() > 0);
+  }
+
+  @Test
+  void capturesHangingQueen() {
+    var squares=".".repeat(64).toCharArray();
+    squares[0]='R';
+    squares[7]='K';
+    squares[32]='q';
+    squares[60]='k';
+    var game=GameImple.deserialize(new String(squares), ChessGame.TeamColor.WHITE);
+
+    var result=new SearchEngine().search(game, SearchLimits.depth(4));
+
+    assertEquals(new MoveImple(PositionImple.of(0, 0), PositionImple.of(4, 0), null), result.bestMove());
+    assertTrue(result.score() > 300);
+  }
+
+  @Test
+  void stopsAtNodeLimitAndLeavesGameAlone() {
+    var game=new GameImple();
+    game.getBoard().resetBoard();
+    var before=game.serialize();
+
+    var result=new SearchEngine().search(game, SearchLimits.nodes(5000));
+
+    assertNotNull(result.bestMove());
+    assertTrue(result.nodes() <= 5000, "visited " + result.nodes());
+    assertTrue(game.validMoves(result.bestMove().getStartPosition()).contains(result.bestMove()));
+    assertEquals(before, game.serialize());
+    assertEquals(ChessGame.TeamColor.WHITE, game.getTeamTurn());
+  }
+
+  @Test
+  void noMoveWhenCheckmated() throws InvalidMoveException {
+    var game=new GameImple();
+    game.getBoard().resetBoard();
+    game.makeMove(new MoveImple(PositionImple.of(1, 5), PositionImple.of(2, 5), null));
+    game.makeMove(new MoveImple(PositionImple.of(6, 4), PositionImple.of(4, 4), null));
+    game.makeMove(new MoveImple(PositionImple.of(1, 6), PositionImple.of(3, 6), null));
+    game.makeMove(new MoveImple(PositionImple.of(7, 3), PositionImple.of(3, 7), null));
+
+    var result=new SearchEngine().search(game, SearchLimits.time(100));
+
+    assertNull(result.bestMove());
+    assertEquals(-SearchEngine.MATE, result.score());
+  }
+}
@@ -0,0 +1,67 @@
+package chessUnitTests;
+
+import chess.*;
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SliderAttacksTest {
+  private static final int[][] rookDirections={{1, 0}, {-1, 0}, {0, 1}, {0, -1}};
+  private static final int[][] bishopDirections={{1, 1}, {-1, 1}, {1, -1}, {-1, -1}};
+
+  @Test
+  void tablesMatchWalkingTheRays() {
+    var random=new SplittableRandom(42);
+    for (int trial=0; trial < 2000; ++trial) {
+      var occupancy=random.nextLong() & random.nextLong();
+      var square=random.nextInt(64);
+
+      assertEquals(walk(square, occupancy, rookDirections), SliderAttacks.rook(square, occupancy));
+      assertEquals(walk(square, occupancy, bishopDirections), SliderAttacks.bishop(square, occupancy));
+      assertEquals(walk(square, occupancy, rookDirections) | walk(square, occupancy, bishopDirections),
+              SliderAttacks.queen(square, occupancy));
+    }
+  }
+
+  @Test
+  void emptyBoardRookSeesWholeRankAndFile() {
+    // a1 rook: rest of rank 1 and file a
+    assertEquals(0x01010101010101FEL, SliderAttacks.rook(0, 0));
+  }
+
+  @Test
+  void occupancyFollowsAddPiece() {
+    for (var board : new ChessBoard[]{new BoardImple(), new BitboardBoard()}) {
+      board.resetBoard();
+      assertEquals(0xFFFFL, board.getOccupancy(ChessGame.TeamColor.WHITE));
+      assertEquals(0xFFFF_0000_0000_0000L, board.getOccupancy(ChessGame.TeamColor.BLACK));
+
+      // e2 pawn captures on d7
+      var pawn=board.getPiece(PositionImple.of(1, 4));
+      board.addPiece(PositionImple.of(1, 4), null);
+      board.addPiece(PositionImple.of(6, 3), pawn);
+
+      assertEquals(0xFFFFL & ~(1L << 12) | 1L << 51, board.getOccupancy(ChessGame.TeamColor.WHITE));
+      assertEquals(0xFFFF_0000_0000_0000L & ~(1L << 51), board.getOccupancy(ChessGame.TeamColor.BLACK));
+      assertEquals(board.getOccupancy(ChessGame.TeamColor.WHITE) | board.getOccupancy(ChessGame.TeamColor.BLACK),
+              board.getOccupancy());
+    }
+  }
+
+  private static long walk(int square, long occupancy, int[][] directions) {
+    long attacks=0;
+    for (var direction : directions) {
+      var row=square / 8 + direction[0];
+      var col=square % 8 + direction[1];
+      while (row >= 0 && row < 8 && col >= 0 && col < 8) {
+        attacks|=1L << row * 8 + col;
+        if ((occupancy & 1L << row * 8 + col) != 0) break;
+        row+=direction[0];
+        col+=direction[1];
+      }
+    }
+    return attacks;
+  }
+}
@@ -0,0 +1,103 @@
+package chessUnitTests;
+
+import chess.*;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TablebaseTest {
+  // KPK brings in KQK and KRK for its promotions
+  private static final Tablebases tables=Tablebases.generate("KPK");
+
+  private static Tablebase.Probe probe(String fen) {
+    return tables.probe(Fen.parse(fen).game());
+  }
+
+  @Test
+  void longestMatesMatchKnownValues() {
+    assertEquals(3, tables.tables().size());
+    // mate in 10 and mate in 16 moves
+    assertEquals(19, tables.get("KQK").longestWin());
+    assertEquals(31, tables.get("KRK").longestWin());
+  }
+
+  @Test
+  void bestMoveMates() {
+    var game=Fen.parse("k7/8/1K6/8/8/8/7Q/8 w - - 0 1").game();
+    assertEquals(new Tablebase.Probe(Tablebase.Outcome.WIN, 1), tables.probe(game));
+
+    game.makeMove(tables.bestMove(game));
+    assertTrue(game.isInCheckmate(ChessGame.TeamColor.BLACK));
+    assertEquals(new Tablebase.Probe(Tablebase.Outcome.LOSS, 0), tables.probe(game));
+  }
+
+  @Test
+  void pawnEndings() {
+    // the defending king in the corner in front of a rook pawn
+    assertEquals(Tablebase.Outcome.DRAW, probe("7k/8/8/8/8/8/7P/K7 w - - 0 1").outcome());
+    // the king in front of its pawn on the sixth wins whoever moves
+    assertEquals(Tablebase.Outcome.WIN, probe("4k3/8/4K3/4P3/8/8/8/8 w - - 0 1").outcome());
+    assertEquals(Tablebase.Outcome.LOSS, probe("4k3/8/4K3/4P3/8/8/8/8 b - - 0 1").outcome());
+  }
+
+  @Test
+  void colorsSwapped() {
+    assertEquals(new Tablebase.Probe(Tablebase.Outcome.WIN, 1), probe("K7/8/1k6/8/8/8/7q/8 b - - 0 1"));
+    assertEquals(Tablebase.Outcome.WIN, probe("8/8/8/4p3/4k3/8/8/4K3 b - - 0 1").outcome());
+  }
+
+  @Test
+  void positionsNotCovered() {
+    var start=new GameImple();
+    start.getBoard().resetBoard();
+    assertNull(tables.probe(start));
+    assertNull(probe("4k3/8/8/8/8/8/8/R3K3 w Q - 0 1"));
+    assertNull(probe("4k3/8/8/8/8/8/8/3QKB2 w - - 0 1"));
+    // no table needed when nobody can mate
+    assertEquals(Tablebase.Outcome.DRAW, probe("4k3/8/8/8/8/8/8/3NK3 w - - 0 1").outcome());
+    // the kings are not part of the material a table is matched on
+    assertNull(probe("8/8/8/8/8/8/8/3QK3 w - - 0 1"));
+    assertNull(probe("4k3/8/8/8/8/8/8/3Q4 w - - 0 1"));
+    assertNull(probe("8/8/8/8/8/8/8/4K3 w - - 0 1"));
+  }
+
+  @Test
+  void writeAndLoad() throws IOException {
+    var directory=Files.createTempDirectory("tablebases");
+    try {
+      tables.write(directory);
+      var loaded=Tablebases.load(directory);
+
+      assertEquals(3, loaded.tables().size());
+      assertEquals(31, loaded.get("KRK").longestWin());
+      var game=Fen.parse("8/8/8/8/8/2k5/8/K6R w - - 0 1").game();
+      assertEquals(tables.probe(game), loaded.probe(game));
+      // six bits a position, half the positions thanks to mirroring
+      assertTrue(Files.size(directory.resolve("KRK.tb")) < 2 * 64 * 64 * 64);
+    } finally {
+      try (var files=Files.list(directory)) {
+        for (var file : files.toList()) Files.delete(file);
+      }
+      Files.delete(directory);
+    }
+  }
+
+  @Test
+  void searchUsesTables() {
+    var game=Fen.parse("8/8/8/8/8/2k5/8/K6R w - - 0 1").game();
+    var known=tables.probe(game);
+    assertEquals(Tablebase.Outcome.WIN, known.outcome());
+
+    var result=new SearchEngine(new TranspositionTable(1), tables).search(game, SearchLimits.depth(2));
+    assertEquals(SearchEngine.MATE - known.plies(), result.score());
+  }
+
+  @Test
+  void rejectsOtherNames() {
+    assertThrows(IllegalArgumentException.class, () -> Tablebases.generate("KQ"));
+    assertThrows(IllegalArgumentException.class, () -> Tablebases.generate("KQRKBN"));
+  }
+}
@@ -0,0 +1,75 @@
+package chessUnitTests;
+
+import chess.*;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TranspositionTableTest {
+
+  @Test
+  void storedEntryReadsBack() {
+    var table=new TranspositionTable(1);
+    var key=0x1234_5678_9ABC_DEF0L;
+    var move=PackedMove.of(12, 28);
+
+    table.store(key, move, -250, 7, TranspositionTable.LOWER_BOUND);
+    var entry=table.probe(key);
+
+    assertEquals(move, TranspositionTable.move(entry));
+    assertEquals(-250, TranspositionTable.score(entry));
+    assertEquals(7, TranspositionTable.depth(entry));
+    assertEquals(TranspositionTable.LOWER_BOUND, TranspositionTable.bound(entry));
+  }
+
+  @Test
+  void capacityIsPowerOfTwoWithinBudget() {
+    var table=new TranspositionTable(3);
+
+    assertEquals(Integer.bitCount(table.capacity()), 1);
+    assertTrue(table.capacity() * 16L <= 3 << 20);
+    assertEquals(1 << 17, table.capacity());
+  }
+
+  @Test
+  void otherKeyInSameSlotMisses() {
+    var table=new TranspositionTable(1);
+    var key=42L;
+    var sameSlot=key + table.capacity();
+
+    table.store(key, 0, 10, 3, TranspositionTable.EXACT);
+
+    assertEquals(0, table.probe(sameSlot));
+  }
+
+  @Test
+  void deeperEntriesOfCurrentSearchAreKept() {
+    var table=new TranspositionTable(1);
+    var deep=42L;
+    var shallow=deep + table.capacity();
+
+    table.store(deep, 0, 10, 8, TranspositionTable.EXACT);
+    table.store(shallow, 0, 20, 2, TranspositionTable.EXACT);
+    assertNotEquals(0, table.probe(deep));
+    assertEquals(0, table.probe(shallow));
+
+    // once a new search starts, the old deep entry gives way
+    table.newSearch();
+    table.store(shallow, 0, 20, 2, TranspositionTable.EXACT);
+    assertEquals(0, table.probe(deep));
+    assertNotEquals(0, table.probe(shallow));
+  }
+
+  @Test
+  void sharedTableKeepsSearchResultsStable() {
+    var table=new TranspositionTable(4);
+    var game=new GameImple();
+    game.getBoard().resetBoard();
+
+    var first=new SearchEngine(table).search(game, SearchLimits.depth(5));
+    var second=new SearchEngine(table).search(game, SearchLimits.depth(5));
+
+    assertEquals(first.score(), second.score());
+    assertTrue(second.nodes() < first.nodes(), "second search should reuse the table");
+  }
+}
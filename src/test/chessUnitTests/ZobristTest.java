@@ -0,0 +1,74 @@
+package chessUnitTests;
+
+import chess.*;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ZobristTest {
+
+  @Test
+  void hashFollowsMakeAndUnmake() {
+    var game=new GameImple();
+    game.getBoard().resetBoard();
+    var start=game.getHash();
+
+    game.makeMove(PackedMove.of(6, 21));
+
+    assertNotEquals(start, game.getHash());
+
+    game.unmakeMove();
+
+    assertEquals(start, game.getHash());
+  }
+
+  @Test
+  void transpositionsShareAHash() {
+    var game=new GameImple();
+    game.getBoard().resetBoard();
+    var start=new GameImple();
+    start.getBoard().resetBoard();
+
+    game.makeMove(PackedMove.of(6, 21));
+    game.makeMove(PackedMove.of(62, 45));
+    game.makeMove(PackedMove.of(21, 6));
+    game.makeMove(PackedMove.of(45, 62));
+
+    assertEquals(start.getHash(), game.getHash());
+    assertEquals(start, game);
+
+    var seen=new HashMap<GameImple, Integer>();
+    seen.put(start, 1);
+    assertEquals(1, seen.get(game));
+  }
+
+  @Test
+  void sideToMoveChangesHash() {
+    var white=new GameImple();
+    var black=new GameImple();
+    black.setTeamTurn(ChessGame.TeamColor.BLACK);
+
+    assertEquals(white.getBoard().getHash(), black.getBoard().getHash());
+    assertNotEquals(white.getHash(), black.getHash());
+    assertNotEquals(white, black);
+  }
+
+  @Test
+  void boardImplementationsAgree() {
+    var board=new BoardImple();
+    var bitboard=new BitboardBoard();
+    board.resetBoard();
+    bitboard.resetBoard();
+
+    assertEquals(board.getHash(), bitboard.getHash());
+    assertEquals(board.getHash(), BoardImple.deserialize(board.serialize()).getHash());
+
+    var pos=new PositionImple(1, 4);
+    board.addPiece(pos, null);
+    bitboard.addPiece(pos, null);
+
+    assertEquals(board.getHash(), bitboard.getHash());
+  }
+}
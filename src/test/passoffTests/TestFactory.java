@@ -2,20 +2,33 @@ package passoffTests;
 
 import chess.*;
 
+import java.util.function.Supplier;
+
 /**
  * Used for testing your code
  * Add in code using your classes for each method for each FIXME
  */
 public class TestFactory {
+  // -Dchess.board=bitboard runs every suite on BitboardBoard; BitboardPassoffTest also switches it while it runs
+  private static Supplier<ChessBoard> boards="bitboard".equals(System.getProperty("chess.board")) ? BitboardBoard::new : BoardImple::new;
+
+  /**
+   * Picks the ChessBoard implementation the tests get from here on
+   */
+  public static void setBoards(Supplier<ChessBoard> boards) {
+    TestFactory.boards=boards;
+  }
 
   //Chess Functions
   //------------------------------------------------------------------------------------------------------------------
   public static ChessBoard getNewBoard() {
-    return new BoardImple();
+    return boards.get();
   }
 
   public static ChessGame getNewGame() {
-    return new GameImple();
+    var game=new GameImple();
+    game.setBoard(getNewBoard());
+    return game;
   }
 
   public static ChessPiece getNewPiece(ChessGame.TeamColor pieceColor, ChessPiece.PieceType type) {